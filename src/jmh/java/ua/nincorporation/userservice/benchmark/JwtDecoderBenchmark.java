@@ -0,0 +1,72 @@
+package ua.nincorporation.userservice.benchmark;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import ua.nincorporation.userservice.security.CachingJwtDecoder;
+import ua.nincorporation.userservice.security.JWTUtil;
+import ua.nincorporation.userservice.security.JwtKeyRing;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtDecoderBenchmark {
+
+    private static final String ISSUER = "NiN";
+
+    private JwtDecoder uncachedDecoder;
+    private JwtDecoder cachingDecoder;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtKeyRing keyRing = new JwtKeyRing(60, 60);
+        JWTUtil jwtUtil = new JWTUtil(keyRing, ISSUER, 60, 60);
+        token = jwtUtil.generateToken(1L, "bench", List.of("USER"));
+
+        NimbusJwtDecoder uncached = new NimbusJwtDecoder(processor(keyRing));
+        uncached.setJwtValidator(JwtValidators.createDefaultWithIssuer(ISSUER));
+        uncachedDecoder = uncached;
+
+        NimbusJwtDecoder signatureOnly = new NimbusJwtDecoder(processor(keyRing));
+        signatureOnly.setJwtValidator(jwt -> OAuth2TokenValidatorResult.success());
+        cachingDecoder = new CachingJwtDecoder(
+                signatureOnly,
+                JwtValidators.createDefaultWithIssuer(ISSUER),
+                10_000,
+                Duration.ofHours(1),
+                "jwt.decoder");
+    }
+
+    private static DefaultJWTProcessor<SecurityContext> processor(JwtKeyRing keyRing) {
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.ES256, keyRing.jwkSource()));
+        processor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        return processor;
+    }
+
+    @Benchmark
+    public Jwt nimbusUncached() {
+        return uncachedDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt nimbusCached() {
+        return cachingDecoder.decode(token);
+    }
+}
@@ -0,0 +1,85 @@
+package ua.nincorporation.userservice.benchmark;
+
+import com.auth0.jwt.JWT;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.*;
+import ua.nincorporation.userservice.security.JwtKeyRing;
+import ua.nincorporation.userservice.security.JwtTokenMinter;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtMintingBenchmark {
+
+    private static final String ISSUER = "NiN";
+    private static final List<String> ROLES = List.of("USER");
+
+    private JwtKeyRing keyRing;
+    private JwtTokenMinter minter;
+    private ECDSASigner nimbusSigner;
+
+    @Setup
+    public void setUp() throws JOSEException {
+        keyRing = new JwtKeyRing(60, 60);
+        minter = new JwtTokenMinter(keyRing, ISSUER);
+        nimbusSigner = new ECDSASigner(keyRing.signingKey().privateKey());
+    }
+
+    @Benchmark
+    public String auth0() {
+        Instant now = Instant.now();
+        return JWT.create()
+                .withJWTId(UUID.randomUUID().toString())
+                .withSubject("1")
+                .withIssuer(ISSUER)
+                .withIssuedAt(now)
+                .withExpiresAt(now.plusSeconds(3600))
+                .withClaim("userId", 1L)
+                .withClaim("username", "bench")
+                .withArrayClaim("roles", ROLES.toArray(new String[0]))
+                .sign(keyRing.signingAlgorithm());
+    }
+
+    @Benchmark
+    public String nimbus() throws JOSEException {
+        Date now = new Date();
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.ES256)
+                        .type(JOSEObjectType.JWT)
+                        .keyID(keyRing.signingKey().keyId())
+                        .build(),
+                new JWTClaimsSet.Builder()
+                        .jwtID(UUID.randomUUID().toString())
+                        .subject("1")
+                        .issuer(ISSUER)
+                        .issueTime(now)
+                        .expirationTime(new Date(now.getTime() + 3_600_000))
+                        .claim("userId", 1L)
+                        .claim("username", "bench")
+                        .claim("roles", ROLES)
+                        .build());
+        jwt.sign(nimbusSigner);
+        return jwt.serialize();
+    }
+
+    @Benchmark
+    public String minter() {
+        long now = System.currentTimeMillis() / 1000;
+        return minter.mint(UUID.randomUUID().toString(), 1L, "bench", ROLES, now, now + 3600);
+    }
+}
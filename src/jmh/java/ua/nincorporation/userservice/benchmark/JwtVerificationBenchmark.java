@@ -0,0 +1,47 @@
+package ua.nincorporation.userservice.benchmark;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.openjdk.jmh.annotations.*;
+import ua.nincorporation.userservice.security.JWTUtil;
+import ua.nincorporation.userservice.security.JwtKeyRing;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private JWTUtil jwtUtil;
+    private DefaultJWTProcessor<SecurityContext> nimbusProcessor;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtKeyRing keyRing = new JwtKeyRing(60, 60);
+        jwtUtil = new JWTUtil(keyRing, "NiN", 60, 60);
+        token = jwtUtil.generateToken(1L, "bench", List.of("USER"));
+
+        nimbusProcessor = new DefaultJWTProcessor<>();
+        nimbusProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.ES256, keyRing.jwkSource()));
+    }
+
+    @Benchmark
+    public DecodedJWT auth0() {
+        return jwtUtil.getVerifier().verify(token);
+    }
+
+    @Benchmark
+    public JWTClaimsSet nimbus() throws Exception {
+        return nimbusProcessor.process(token, null);
+    }
+}
@@ -0,0 +1,142 @@
+package ua.nincorporation.userservice.benchmark;
+
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClient;
+import ua.nincorporation.userservice.config.RestClientConfig;
+import ua.nincorporation.userservice.dto.GoogleTokenResponse;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// token exchange latency percentiles against a local HTTPS stub: the JDK client RestClient.create()
+// resolved to before HttpClient5 was on the classpath, versus the pooled client from RestClientConfig
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class TokenExchangeBenchmark {
+
+    private static final char[] PASSWORD = "changeit".toCharArray();
+    private static final String RESPONSE = """
+            {"access_token":"a","expires_in":3599,"id_token":"i","scope":"openid","token_type":"Bearer"}
+            """;
+
+    private HttpsServer server;
+    private String tokenUri;
+    private RestClient jdkDefault;
+    private RestClient pooled;
+    private CloseableHttpClient httpClient;
+    private MultiValueMap<String, String> form;
+
+    @Setup
+    public void setUp() throws Exception {
+        SSLContext sslContext = selfSignedContext();
+        SSLContext.setDefault(sslContext);
+
+        server = HttpsServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+        server.setExecutor(Executors.newFixedThreadPool(16));
+        server.createContext("/token", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                in.readAllBytes();
+            }
+            byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        tokenUri = "https://localhost:" + server.getAddress().getPort() + "/token";
+
+        jdkDefault = RestClient.builder().requestFactory(new JdkClientHttpRequestFactory()).build();
+
+        RestClientConfig config = new RestClientConfig();
+        PoolingHttpClientConnectionManager connectionManager = config.httpConnectionManager(
+                50, 20, Duration.ofSeconds(2), Duration.ofSeconds(5), Duration.ofSeconds(30));
+        httpClient = config.httpClient(connectionManager, Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(30));
+        pooled = config.restClient(RestClient.builder(), httpClient);
+
+        form = new LinkedMultiValueMap<>();
+        form.add("grant_type", "authorization_code");
+        form.add("code", "code");
+        form.add("code_verifier", "verifier");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public GoogleTokenResponse jdkDefault() {
+        return exchange(jdkDefault);
+    }
+
+    @Benchmark
+    public GoogleTokenResponse pooled() {
+        return exchange(pooled);
+    }
+
+    private GoogleTokenResponse exchange(RestClient client) {
+        return client.post()
+                .uri(tokenUri)
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(form)
+                .retrieve()
+                .body(GoogleTokenResponse.class);
+    }
+
+    private static SSLContext selfSignedContext() throws Exception {
+        Path keystore = Files.createTempDirectory("token-exchange-bench").resolve("stub.p12");
+        Process keytool = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", "stub", "-keyalg", "EC", "-groupname", "secp256r1",
+                "-dname", "CN=localhost", "-ext", "SAN=dns:localhost",
+                "-storetype", "PKCS12", "-keystore", keystore.toString(),
+                "-storepass", new String(PASSWORD), "-validity", "1")
+                .inheritIO()
+                .start();
+        if (keytool.waitFor() != 0) {
+            throw new IllegalStateException("keytool failed to create the stub certificate");
+        }
+
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(keystore)) {
+            store.load(in, PASSWORD);
+        }
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(store, PASSWORD);
+        TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(store);
+
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagers.getKeyManagers(), trustManagers.getTrustManagers(), null);
+        return context;
+    }
+}
@@ -0,0 +1,85 @@
+package ua.nincorporation.userservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ua.nincorporation.userservice.UserServiceApplication;
+import ua.nincorporation.userservice.dto.BatchUserResultDto;
+import ua.nincorporation.userservice.dto.UserCreateDto;
+import ua.nincorporation.userservice.service.UserBatchService;
+import ua.nincorporation.userservice.service.UserService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// users created per second through the single-create path, one call per user as the onboarding
+// jobs do today, versus one UserBatchService call per batch; hashing runs at the calibrated cost
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserCreationBenchmark {
+
+    private static final int BATCH_SIZE = 200;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private UserBatchService userBatchService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:16");
+        postgres.start();
+
+        context = new SpringApplicationBuilder(UserServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        userService = context.getBean(UserService.class);
+        userBatchService = context.getBean(UserBatchService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void singleCreate() {
+        for (UserCreateDto user : nextBatch()) {
+            userService.createUser(user);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<BatchUserResultDto> batchCreate() {
+        return userBatchService.createUsers(nextBatch());
+    }
+
+    private List<UserCreateDto> nextBatch() {
+        List<UserCreateDto> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            long n = sequence.incrementAndGet();
+            batch.add(new UserCreateDto("bench" + n, "password" + n, LocalDate.of(1990, 1, 1), "bench" + n + "@example.com"));
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,98 @@
+package ua.nincorporation.userservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+// page latency at increasing depth on a seeded users table: the keyset query UserRepository now
+// issues versus the OFFSET paging it replaced; keyset should stay flat as the page moves deeper
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserListingBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"0", "10000", "500000", "990000"})
+    public int depth;
+
+    private PostgreSQLContainer<?> postgres;
+    private Connection connection;
+    private PreparedStatement keyset;
+    private PreparedStatement offset;
+    private long afterId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        postgres = new PostgreSQLContainer<>("postgres:16");
+        postgres.start();
+        connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE users
+                    (
+                        id            BIGINT PRIMARY KEY GENERATED BY DEFAULT AS IDENTITY,
+                        username      VARCHAR(64) UNIQUE  NOT NULL,
+                        email         VARCHAR(128) UNIQUE NOT NULL,
+                        date_of_birth DATE                NOT NULL
+                    )""");
+            statement.execute("""
+                    INSERT INTO users (username, email, date_of_birth)
+                    SELECT 'user' || g, 'user' || g || '@example.com', DATE '1990-01-01'
+                    FROM generate_series(1, %d) g""".formatted(ROWS));
+            statement.execute("ANALYZE users");
+        }
+
+        keyset = connection.prepareStatement(
+                "SELECT id, username, email, date_of_birth FROM users WHERE id > ? ORDER BY id LIMIT ?");
+        offset = connection.prepareStatement(
+                "SELECT id, username, email, date_of_birth FROM users ORDER BY id OFFSET ? LIMIT ?");
+
+        // ids are dense from 1, so the row at position depth carries id depth
+        afterId = depth;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public void keyset(Blackhole blackhole) throws SQLException {
+        keyset.setLong(1, afterId);
+        keyset.setInt(2, PAGE_SIZE + 1);
+        consume(keyset, blackhole);
+    }
+
+    @Benchmark
+    public void offset(Blackhole blackhole) throws SQLException {
+        offset.setLong(1, depth);
+        offset.setInt(2, PAGE_SIZE + 1);
+        consume(offset, blackhole);
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getLong(1));
+                blackhole.consume(rs.getString(2));
+                blackhole.consume(rs.getString(3));
+                blackhole.consume(rs.getDate(4));
+            }
+        }
+    }
+}
@@ -1,32 +1,58 @@
 package ua.nincorporation.userservice.config;
 
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2Error;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
 import org.springframework.security.oauth2.jwt.*;
+import ua.nincorporation.userservice.security.OidcIdTokenDecoderFactory;
+import ua.nincorporation.userservice.security.RefreshingJwkSource;
+import ua.nincorporation.userservice.security.SnapshotResourceRetriever;
 
+import java.nio.file.Path;
 import java.time.Duration;
 
 @Configuration
 @RequiredArgsConstructor
 public class GoogleOidcConfig {
 
+    private static final int RESOURCE_SIZE_LIMIT = 512 * 1024;
+
     @Value("${app.google.issuer-uri:https://accounts.google.com}")
     private String issuer;
 
     @Value("${spring.security.oauth2.client.registration.google.client-id}")
     private String clientId;
 
+    @Value("${app.google.snapshot-dir:${java.io.tmpdir}/user-service/oidc}")
+    private Path snapshotDir;
+
+    @Value("${app.google.connect-timeout:2s}")
+    private Duration connectTimeout;
+
+    @Value("${app.google.read-timeout:2s}")
+    private Duration readTimeout;
+
+    @Value("${app.google.jwks.refresh-interval:PT15M}")
+    private Duration jwksRefreshInterval;
+
+    @Value("${app.google.jwks.min-refresh-interval:PT30S}")
+    private Duration jwksMinRefreshInterval;
+
     @Bean
     @Qualifier("googleIdTokenDecoder")
-    public JwtDecoder googleIdTokenDecoder() {
-        NimbusJwtDecoder dec = (NimbusJwtDecoder) JwtDecoders.fromOidcIssuerLocation(issuer);
+    public JwtDecoder googleIdTokenDecoder(TaskScheduler taskScheduler, MeterRegistry meterRegistry) {
+        SnapshotResourceRetriever retriever = new SnapshotResourceRetriever(
+                new DefaultResourceRetriever((int) connectTimeout.toMillis(), (int) readTimeout.toMillis(), RESOURCE_SIZE_LIMIT),
+                snapshotDir);
 
         OAuth2TokenValidator<Jwt> withIssuer = JwtValidators.createDefaultWithIssuer(issuer);
         OAuth2TokenValidator<Jwt> withAudience = jwt ->
@@ -35,7 +61,8 @@ public class GoogleOidcConfig {
                         : OAuth2TokenValidatorResult.failure(new OAuth2Error("invalid_token", "aud mismatch", null));
         OAuth2TokenValidator<Jwt> withTimestamps = new JwtTimestampValidator(Duration.ofSeconds(60));
 
-        dec.setJwtValidator(new DelegatingOAuth2TokenValidator<>(withIssuer, withAudience, withTimestamps));
-        return dec;
+        return new OidcIdTokenDecoderFactory(issuer, retriever, jwksUrl -> new RefreshingJwkSource(
+                jwksUrl, retriever, taskScheduler, jwksRefreshInterval, jwksMinRefreshInterval, meterRegistry))
+                .lazyDecoder(new DelegatingOAuth2TokenValidator<>(withIssuer, withAudience, withTimestamps));
     }
-}
\ No newline at end of file
+}
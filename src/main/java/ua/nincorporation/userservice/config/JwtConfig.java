@@ -1,69 +1,76 @@
 package ua.nincorporation.userservice.config;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtValidators;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import ua.nincorporation.userservice.security.CachingJwtDecoder;
+import ua.nincorporation.userservice.security.JwtKeyRing;
+import ua.nincorporation.userservice.security.RevokedTokenValidator;
+import ua.nincorporation.userservice.security.RoleAuthorities;
+import ua.nincorporation.userservice.service.TokenRevocationService;
 
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
-import java.util.Collection;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.Duration;
 
 @Configuration
 @RequiredArgsConstructor
 public class JwtConfig {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-
-    @Value("${jwt.secret-base64:false}")
-    private boolean secretBase64;
-
     @Value("${jwt.issuer:NiN}")
     private String issuer;
 
-    @Bean
-    public JwtDecoder jwtDecoder() {
-        byte[] secretBytes = secretBase64
-                ? Base64.getDecoder().decode(jwtSecret)
-                : jwtSecret.getBytes(StandardCharsets.UTF_8);
+    @Value("${jwt.decoder-cache.maximum-size:10000}")
+    private long decoderCacheSize;
+
+    @Value("${jwt.expiration-minutes:60}")
+    private long expirationMinutes;
 
-        SecretKey secretKey = new SecretKeySpec(secretBytes, "HMACSHA256");
+    @Bean
+    public JwtDecoder jwtDecoder(JwtKeyRing keyRing,
+                                 TokenRevocationService tokenRevocationService,
+                                 MeterRegistry meterRegistry) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.ES256, keyRing.jwkSource()));
+        // Spring's validators below own the claim checks
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
 
-        NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(secretKey).build();
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(jwtProcessor);
+        // claims are validated by the caching decoder on every call, cached or not
+        decoder.setJwtValidator(jwt -> OAuth2TokenValidatorResult.success());
 
         OAuth2TokenValidator<Jwt> withIssuer = JwtValidators.createDefaultWithIssuer(issuer);
-        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(withIssuer));
 
-        return decoder;
+        CachingJwtDecoder cachingDecoder = new CachingJwtDecoder(
+                decoder,
+                new DelegatingOAuth2TokenValidator<>(withIssuer, new RevokedTokenValidator(tokenRevocationService)),
+                decoderCacheSize,
+                Duration.ofMinutes(expirationMinutes),
+                "jwt.decoder");
+        cachingDecoder.bindTo(meterRegistry);
+
+        return cachingDecoder;
     }
 
     @Bean
     public JwtAuthenticationConverter jwtAuthenticationConverter() {
         JwtAuthenticationConverter conv = new JwtAuthenticationConverter();
 
-        conv.setJwtGrantedAuthoritiesConverter(jwt -> {
-            Collection<String> role = jwt.getClaimAsStringList("role");
-            if (role == null) {
-                String single = jwt.getClaimAsString("role");
-                role = single == null ? List.of() : List.of(single);
-            }
-            return role.stream()
-                    .map(SimpleGrantedAuthority::new)
-                    .collect(Collectors.toList());
-        });
+        // JWTUtil writes the "roles" claim; the registry hands back a shared list per role combination
+        conv.setJwtGrantedAuthoritiesConverter(jwt -> RoleAuthorities.fromClaim(jwt.getClaims().get("roles")));
 
         return conv;
     }
@@ -1,9 +1,9 @@
 package ua.nincorporation.userservice.config;
 
 import org.springframework.context.annotation.Configuration;
-import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@EnableRetry
+@EnableScheduling
 @Configuration
-public class RetryConfig {
+public class SchedulingConfig {
 }
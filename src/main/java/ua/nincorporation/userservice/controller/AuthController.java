@@ -11,6 +11,8 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -18,11 +20,15 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ua.nincorporation.userservice.dto.AuthRequestDTO;
 import ua.nincorporation.userservice.dto.AuthResponseDto;
+import ua.nincorporation.userservice.dto.RefreshTokenRequest;
 import ua.nincorporation.userservice.dto.UserCreateDto;
+import ua.nincorporation.userservice.exception.InvalidTokenException;
 import ua.nincorporation.userservice.model.User;
 import ua.nincorporation.userservice.security.CustomUserDetails;
 import ua.nincorporation.userservice.security.JWTUtil;
 import ua.nincorporation.userservice.service.AuthenticationService;
+import ua.nincorporation.userservice.service.RefreshTokenService;
+import ua.nincorporation.userservice.service.TokenRevocationService;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -35,6 +41,8 @@ public class AuthController {
     private final AuthenticationService authenticationService;
     private final JWTUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
 
     @PostMapping("/register")
     public ResponseEntity<AuthResponseDto> register(@RequestBody @Valid UserCreateDto userCreateDto) {
@@ -45,8 +53,9 @@ public class AuthController {
         List<String> roles = List.of(user.getRole().name());
 
         String token = jwtUtil.generateToken(user.getId(), user.getUsername(), roles);
+        String refreshToken = refreshTokenService.issue(user.getId());
 
-        AuthResponseDto body = new AuthResponseDto(token, jwtUtil.getExpirationSeconds());
+        AuthResponseDto body = new AuthResponseDto(token, jwtUtil.getExpirationSeconds(), refreshToken);
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(token);
 
@@ -67,11 +76,40 @@ public class AuthController {
                 .collect(Collectors.toList());
 
         String token = jwtUtil.generateToken(userDetails.getId(), userDetails.getUsername(), roles);
+        String refreshToken = refreshTokenService.issue(userDetails.getId());
 
-        AuthResponseDto body = new AuthResponseDto(token, jwtUtil.getExpirationSeconds());
+        AuthResponseDto body = new AuthResponseDto(token, jwtUtil.getExpirationSeconds(), refreshToken);
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(token);
 
         return ResponseEntity.ok().headers(headers).body(body);
     }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponseDto> refresh(@RequestBody @Valid RefreshTokenRequest refreshTokenRequest) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshTokenRequest.refreshToken());
+        User user = rotation.user();
+
+        List<String> roles = List.of(user.getRole().name());
+
+        String token = jwtUtil.generateToken(user.getId(), user.getUsername(), roles);
+
+        AuthResponseDto body = new AuthResponseDto(token, jwtUtil.getExpirationSeconds(), rotation.refreshToken());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@AuthenticationPrincipal Jwt jwt) {
+        if (jwt == null || jwt.getId() == null) {
+            throw new InvalidTokenException("A bearer token with a jti is required");
+        }
+        log.debug("Logout for jti = {}", jwt.getId());
+
+        tokenRevocationService.revoke(jwt.getId(), jwt.getExpiresAt());
+
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,32 @@
+package ua.nincorporation.userservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ua.nincorporation.userservice.security.JwtKeyRing;
+
+import java.time.Duration;
+
+@RequiredArgsConstructor
+@RestController
+public class JwksController {
+
+    private static final MediaType JWK_SET_CONTENT_TYPE = MediaType.parseMediaType("application/jwk-set+json");
+
+    private final JwtKeyRing keyRing;
+
+    @Value("${jwt.keys.jwks-max-age:PT15M}")
+    private Duration jwksMaxAge;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<String> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(jwksMaxAge).cachePublic())
+                .contentType(JWK_SET_CONTENT_TYPE)
+                .body(keyRing.publicKeysJson());
+    }
+}
@@ -1,32 +1,111 @@
 package ua.nincorporation.userservice.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ua.nincorporation.userservice.dto.BatchUserResultDto;
 import ua.nincorporation.userservice.dto.UserCreateDto;
+import ua.nincorporation.userservice.dto.UserLookupDto;
+import ua.nincorporation.userservice.dto.UserPageDto;
 import ua.nincorporation.userservice.dto.UserReadDto;
 import ua.nincorporation.userservice.dto.UserUpdateDTO;
+import ua.nincorporation.userservice.service.UserBatchService;
+import ua.nincorporation.userservice.service.UserExportService;
 import ua.nincorporation.userservice.service.UserService;
 
+import java.io.OutputStream;
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPOutputStream;
 
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.ResponseEntity.*;
 
 @Slf4j
 @RequiredArgsConstructor
+@Validated
 @RestController
 @RequestMapping("/users")
 public class UserController {
 
     private final UserService userService;
+    private final UserExportService userExportService;
+    private final UserBatchService userBatchService;
+
+    @Value("${app.export.timeout:PT30M}")
+    private Duration exportTimeout;
 
     @GetMapping
-    public ResponseEntity<List<UserReadDto>> getAllUsers() {
-        List<UserReadDto> users = userService.findAllUsers();
-        return ok(users);
+    public ResponseEntity<UserPageDto> getAllUsers(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "50") @Min(1) @Max(500) int limit) {
+        UserPageDto page = userService.findUsersPage(cursor, limit);
+
+        if (page.nextCursor() == null) {
+            return ok(page);
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", page.nextCursor())
+                .toUriString();
+        return ok().header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"").body(page);
+    }
+
+    // streamed on its own async timeout; the default one stays short for every other endpoint
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public WebAsyncTask<Void> exportUsers(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) {
+        UserExportService.ExportSlot slot = userExportService.reserveSlot();
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        response.setContentType("application/x-ndjson");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        WebAsyncTask<Void> task = new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            try (slot) {
+                OutputStream out = response.getOutputStream();
+                if (gzip) {
+                    try (GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024)) {
+                        userExportService.exportNdjson(compressed);
+                    }
+                } else {
+                    userExportService.exportNdjson(out);
+                }
+            }
+            return null;
+        });
+        // the task may time out or fail before it ever runs; the slot must come back either way
+        task.onTimeout(releasing(slot));
+        task.onError(releasing(slot));
+        task.onCompletion(slot::close);
+        return task;
+    }
+
+    // RESULT_NONE leaves the default timeout and error handling in place
+    @SuppressWarnings("unchecked")
+    private static <V> Callable<V> releasing(UserExportService.ExportSlot slot) {
+        return () -> {
+            slot.close();
+            return (V) CallableProcessingInterceptor.RESULT_NONE;
+        };
     }
 
     @GetMapping("/{id}")
@@ -36,6 +115,13 @@ public class UserController {
                 .orElse(notFound().build());
     }
 
+    @PostMapping("/lookup")
+    public ResponseEntity<UserLookupDto> lookupUsers(@RequestBody @NotEmpty @Size(max = 500) List<@NotNull Long> ids) {
+        log.debug("Lookup request for {} id(s)", ids.size());
+
+        return ok(userService.lookupUsers(ids));
+    }
+
     @PostMapping
     public ResponseEntity<UserReadDto> createUser(@RequestBody @Valid UserCreateDto userDto) {
         log.debug("Create user request for username = {}", userDto.username());
@@ -45,6 +131,14 @@ public class UserController {
         return status(CREATED).body(created);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchUserResultDto>> createUsers(
+            @RequestBody @NotEmpty @Size(max = 500) List<UserCreateDto> users) {
+        log.debug("Batch create request for {} user(s)", users.size());
+
+        return ok(userBatchService.createUsers(users));
+    }
+
     @PatchMapping("/{id}")
     public ResponseEntity<UserReadDto> updateUser(@PathVariable Long id,
                                                   @RequestBody UserUpdateDTO userDto) {
@@ -63,4 +157,35 @@ public class UserController {
                 ? noContent().build()
                 : notFound().build();
     }
+
+    // gzip;q=0 is a refusal; * stands in for gzip only when gzip is not listed itself
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = quality;
+            } else if (name.equals("*")) {
+                any = quality;
+            }
+        }
+        double quality = gzip != null ? gzip : any != null ? any : 0;
+        return quality > 0;
+    }
 }
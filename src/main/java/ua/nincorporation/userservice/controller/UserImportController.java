@@ -0,0 +1,56 @@
+package ua.nincorporation.userservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ua.nincorporation.userservice.dto.UserImportDto;
+import ua.nincorporation.userservice.service.UserImportService;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.UUID;
+
+import static org.springframework.http.ResponseEntity.*;
+
+@Slf4j
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/admin/users/imports")
+public class UserImportController {
+
+    private static final String TEXT_CSV = "text/csv";
+
+    private final UserImportService userImportService;
+
+    // the body is read straight off the request so the upload is never buffered in memory or on disk
+    @PostMapping(consumes = TEXT_CSV)
+    public ResponseEntity<UserImportDto> startImport(InputStream body) {
+        log.debug("User import upload started");
+
+        UserImportDto job = userImportService.startImport(body);
+
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(job.id())
+                .toUri();
+        return created(location).body(job);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UserImportDto> getImport(@PathVariable UUID id) {
+        return userImportService.findImport(id)
+                .map(ResponseEntity::ok)
+                .orElse(notFound().build());
+    }
+
+    @PostMapping(value = "/{id}", consumes = TEXT_CSV)
+    public ResponseEntity<UserImportDto> resumeImport(@PathVariable UUID id, InputStream body) {
+        log.debug("User import resume request for id = {}", id);
+
+        return userImportService.resumeImport(id, body)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> notFound().build());
+    }
+}
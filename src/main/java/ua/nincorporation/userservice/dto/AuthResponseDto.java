@@ -1,4 +1,4 @@
 package ua.nincorporation.userservice.dto;
 
-public record AuthResponseDto(String token, Long expiresIn) {
+public record AuthResponseDto(String token, Long expiresIn, String refreshToken) {
 }
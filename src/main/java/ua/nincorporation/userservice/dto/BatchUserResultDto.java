@@ -0,0 +1,19 @@
+package ua.nincorporation.userservice.dto;
+
+public record BatchUserResultDto(int index,
+                                 Status status,
+                                 UserReadDto user,
+                                 String error) {
+
+    public enum Status {
+        CREATED, DUPLICATE, INVALID, FAILED
+    }
+
+    public static BatchUserResultDto created(int index, UserReadDto user) {
+        return new BatchUserResultDto(index, Status.CREATED, user, null);
+    }
+
+    public static BatchUserResultDto failed(int index, Status status, String error) {
+        return new BatchUserResultDto(index, status, null, error);
+    }
+}
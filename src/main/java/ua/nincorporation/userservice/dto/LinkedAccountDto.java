@@ -0,0 +1,8 @@
+package ua.nincorporation.userservice.dto;
+
+import ua.nincorporation.userservice.model.Role;
+
+public record LinkedAccountDto(Long userId,
+                               String username,
+                               Role role) {
+}
@@ -0,0 +1,7 @@
+package ua.nincorporation.userservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenRequest(@NotBlank(message = "Refresh token should not be blank.")
+                                  String refreshToken) {
+}
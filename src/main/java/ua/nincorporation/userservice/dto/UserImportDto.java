@@ -0,0 +1,22 @@
+package ua.nincorporation.userservice.dto;
+
+import ua.nincorporation.userservice.model.UserImport;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record UserImportDto(UUID id,
+                            UserImport.Status status,
+                            long linesCommitted,
+                            long rowsImported,
+                            long rowsDuplicate,
+                            long rowsRejected,
+                            String error,
+                            LocalDateTime createdAt,
+                            LocalDateTime updatedAt) {
+
+    public static UserImportDto of(UserImport job) {
+        return new UserImportDto(job.getId(), job.getStatus(), job.getLinesCommitted(), job.getRowsImported(),
+                job.getRowsDuplicate(), job.getRowsRejected(), job.getError(), job.getCreatedAt(), job.getUpdatedAt());
+    }
+}
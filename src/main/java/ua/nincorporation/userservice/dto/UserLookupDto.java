@@ -0,0 +1,7 @@
+package ua.nincorporation.userservice.dto;
+
+import java.util.List;
+
+public record UserLookupDto(List<UserReadDto> users,
+                            List<Long> missing) {
+}
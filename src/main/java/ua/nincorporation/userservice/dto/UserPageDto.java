@@ -0,0 +1,7 @@
+package ua.nincorporation.userservice.dto;
+
+import java.util.List;
+
+public record UserPageDto(List<UserReadDto> items,
+                          String nextCursor) {
+}
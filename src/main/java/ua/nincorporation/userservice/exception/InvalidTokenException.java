@@ -0,0 +1,10 @@
+package ua.nincorporation.userservice.exception;
+
+public class InvalidTokenException extends RuntimeException {
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+    public InvalidTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,37 @@
+package ua.nincorporation.userservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@ToString(exclude = "jwk")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "jwt_signing_key")
+public class JwtSigningKey implements Serializable {
+    @Id
+    @Column(name = "kid", length = 64)
+    private String kid;
+
+    @Column(name = "jwk", nullable = false, length = 1024)
+    private String jwk;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // null while the key is only pre-published as the next one
+    @Column(name = "activated_at")
+    private LocalDateTime activatedAt;
+
+    @Column(name = "retired_at")
+    private LocalDateTime retiredAt;
+
+    @Column(name = "remove_after")
+    private LocalDateTime removeAfter;
+}
@@ -27,7 +27,8 @@ public class User implements Serializable {
     @Column(name = "username",unique = true, nullable = false, length = 64)
     private String username;
 
-    @Column(name = "password", nullable = false)
+    // null for accounts that only sign in through an OIDC provider
+    @Column(name = "password")
     private String password;
 
     @Column(name = "email", unique = true, nullable = false, length = 128)
@@ -0,0 +1,19 @@
+package ua.nincorporation.userservice.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ua.nincorporation.userservice.model.JwtSigningKey;
+
+import java.time.LocalDateTime;
+
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, String> {
+
+    // held until the surrounding transaction ends, so replicas change the key set one at a time
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:key)) l", nativeQuery = true)
+    int lock(long key);
+
+    @Modifying
+    @Query("delete from JwtSigningKey k where k.removeAfter <= :now")
+    int deleteRemovable(LocalDateTime now);
+}
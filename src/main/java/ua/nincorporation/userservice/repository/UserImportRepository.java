@@ -0,0 +1,52 @@
+package ua.nincorporation.userservice.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ua.nincorporation.userservice.model.UserImport;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface UserImportRepository extends JpaRepository<UserImport, UUID> {
+
+    // a RUNNING job whose owner stopped reporting progress is presumed dead and can be taken over
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE user_service.user_import
+            SET status = 'RUNNING', attempt = :attempt, error = NULL, updated_at = :now
+            WHERE id = :id AND (status = 'FAILED' OR (status = 'RUNNING' AND updated_at < :staleBefore))
+            """, nativeQuery = true)
+    int claim(UUID id, UUID attempt, LocalDateTime staleBefore, LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE user_service.user_import SET updated_at = :now
+            WHERE id = :id AND attempt = :attempt AND status = 'RUNNING'
+            """, nativeQuery = true)
+    int heartbeat(UUID id, UUID attempt, LocalDateTime now);
+
+    @Modifying
+    @Query(value = """
+            UPDATE user_service.user_import
+            SET lines_committed = :linesCommitted,
+                rows_imported = rows_imported + :imported,
+                rows_duplicate = rows_duplicate + :duplicate,
+                rows_rejected = rows_rejected + :rejected,
+                updated_at = :now
+            WHERE id = :id AND attempt = :attempt AND status = 'RUNNING'
+            """, nativeQuery = true)
+    int recordChunk(UUID id, UUID attempt, long linesCommitted, long imported, long duplicate, long rejected,
+                    LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE user_service.user_import SET status = :status, error = :error, updated_at = :now
+            WHERE id = :id AND attempt = :attempt AND status = 'RUNNING'
+            """, nativeQuery = true)
+    int finish(UUID id, UUID attempt, String status, String error, LocalDateTime now);
+}
@@ -1,11 +1,75 @@
 package ua.nincorporation.userservice.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ua.nincorporation.userservice.dto.LinkedAccountDto;
 import ua.nincorporation.userservice.model.UserProvider;
 
+import java.time.LocalDate;
 import java.util.Optional;
 
 public interface UserProviderRepository extends JpaRepository<UserProvider, Long> {
     Optional<UserProvider> findByProviderAndProviderUserId(String provider, String providerUserId);
+
+    @Query("""
+            select new ua.nincorporation.userservice.dto.LinkedAccountDto(u.id, u.username, u.role)
+            from UserProvider p join p.user u
+            where p.provider = :provider and p.providerUserId = :providerUserId""")
+    Optional<LinkedAccountDto> findLinkedAccount(String provider, String providerUserId);
+
+    // finds the linked user or creates/reuses one by email and links it, in one statement that
+    // concurrent first logins can race on without a unique violation, on the email or the username
+    @Transactional
+    @Query(value = """
+            WITH existing AS (
+                SELECT u.id, u.username, u.role
+                FROM user_service.users u
+                JOIN user_service.user_provider p ON p.user_id = u.id
+                WHERE p.provider = :provider AND p.provider_user_id = :providerUserId
+            ), base AS (
+                SELECT left(coalesce(nullif(btrim(CAST(:username AS varchar)), ''), split_part(:email, '@', 1)), 64)
+                           AS name
+            ), plain AS (
+                -- skips on either unique conflict: an existing email to link, or a display name already taken
+                INSERT INTO user_service.users (username, email, date_of_birth, role)
+                SELECT name, :email, :dateOfBirth, 'USER' FROM base
+                WHERE NOT EXISTS (SELECT 1 FROM existing)
+                ON CONFLICT DO NOTHING
+                RETURNING id, username, role
+            ), suffixed AS (
+                -- the provider's id for the user makes the name unique; an existing email is linked as is
+                INSERT INTO user_service.users (username, email, date_of_birth, role)
+                SELECT left(name, greatest(63 - length(:providerUserId), 0)) || '-' || :providerUserId,
+                       :email, :dateOfBirth, 'USER'
+                FROM base
+                WHERE NOT EXISTS (SELECT 1 FROM existing) AND NOT EXISTS (SELECT 1 FROM plain)
+                ON CONFLICT (email) DO UPDATE SET email = EXCLUDED.email
+                RETURNING id, username, role
+            ), account AS (
+                SELECT id, username, role FROM plain
+                UNION ALL
+                SELECT id, username, role FROM suffixed
+            ), link AS (
+                INSERT INTO user_service.user_provider (user_id, provider, provider_user_id)
+                SELECT id, :provider, :providerUserId FROM account
+                ON CONFLICT (provider, provider_user_id) DO NOTHING
+            )
+            SELECT id AS "userId", username, role FROM existing
+            UNION ALL
+            SELECT id AS "userId", username, role FROM account
+            """, nativeQuery = true)
+    LinkedAccountRow upsertLinkedAccount(String provider,
+                                         String providerUserId,
+                                         String email,
+                                         String username,
+                                         LocalDate dateOfBirth);
+
     boolean existsByProviderAndProviderUserId(String provider, String providerUserId);
+
+    interface LinkedAccountRow {
+        Long getUserId();
+        String getUsername();
+        String getRole();
+    }
 }
@@ -1,9 +1,15 @@
 package ua.nincorporation.userservice.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ua.nincorporation.userservice.dto.UserReadDto;
 import ua.nincorporation.userservice.model.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,9 +17,28 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String username);
 
+    @Query("select new ua.nincorporation.userservice.dto.UserReadDto(u.id, u.username, u.email, u.dateOfBirth) from User u where u.id = :id")
+    Optional<UserReadDto> findReadDtoById(Long id);
+
+    @Query("select new ua.nincorporation.userservice.dto.UserReadDto(u.id, u.username, u.email, u.dateOfBirth) from User u where u.email = :email")
+    Optional<UserReadDto> findReadDtoByEmail(String email);
+
+    @Query("select new ua.nincorporation.userservice.dto.UserReadDto(u.id, u.username, u.email, u.dateOfBirth) from User u where u.username = :username")
+    Optional<UserReadDto> findReadDtoByUsername(String username);
+
+    @Query("select new ua.nincorporation.userservice.dto.UserReadDto(u.id, u.username, u.email, u.dateOfBirth) from User u where u.id > :afterId order by u.id")
+    List<UserReadDto> findReadDtoPage(Long afterId, Limit limit);
+
+    @Query("select new ua.nincorporation.userservice.dto.UserReadDto(u.id, u.username, u.email, u.dateOfBirth) from User u where u.id in :ids")
+    List<UserReadDto> findReadDtoByIdIn(Collection<Long> ids);
+
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
 
     boolean existsByUsernameAndIdNot(String username, Long id);
     boolean existsByEmailAndIdNot(String email, Long id);
+
+    @Modifying
+    @Query("update User u set u.password = :password, u.updatedAt = CURRENT_TIMESTAMP where u.id = :id")
+    int updatePassword(Long id, String password);
 }
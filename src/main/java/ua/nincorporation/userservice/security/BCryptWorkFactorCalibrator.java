@@ -0,0 +1,44 @@
+package ua.nincorporation.userservice.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+@Slf4j
+public final class BCryptWorkFactorCalibrator {
+
+    private static final int SAMPLES = 3;
+    private static final String PROBE = "calibration-probe";
+
+    private BCryptWorkFactorCalibrator() {
+    }
+
+    public static int calibrate(Duration latencyBudget, int minStrength, int maxStrength) {
+        if (minStrength > maxStrength) {
+            throw new IllegalArgumentException("minStrength must not be greater than maxStrength");
+        }
+
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode(PROBE);
+
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            probe.encode(PROBE);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+
+        // every extra BCrypt round doubles the cost
+        int strength = minStrength;
+        long estimate = fastest;
+        while (strength < maxStrength && estimate * 2 <= latencyBudget.toNanos()) {
+            strength++;
+            estimate *= 2;
+        }
+
+        log.info("BCrypt calibrated to strength {} (~{} ms per hash, budget {} ms)",
+                strength, Duration.ofNanos(estimate).toMillis(), latencyBudget.toMillis());
+        return strength;
+    }
+}
@@ -1,18 +1,16 @@
 package ua.nincorporation.userservice.security;
 
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import ua.nincorporation.userservice.model.User;
 
 import java.util.Collection;
-import java.util.Collections;
 
 public record CustomUserDetails(User user) implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singletonList(new SimpleGrantedAuthority(user.getRole().name()));
+        return RoleAuthorities.of(user.getRole());
     }
 
     public Long getId() {
@@ -44,6 +42,7 @@ public record CustomUserDetails(User user) implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return true;
+        // passwordless accounts fail the pre-authentication checks, before any hash is compared
+        return this.user.getPassword() != null;
     }
 }
@@ -0,0 +1,42 @@
+package ua.nincorporation.userservice.security;
+
+import com.nimbusds.jose.jwk.ECKey;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+// keys that die with the process; only fit for a single instance such as tests and benchmarks
+public class InMemoryJwtKeyStore implements JwtKeyStore {
+
+    private JwtKeySet keys;
+
+    @Override
+    public synchronized JwtKeySet loadOrCreate(Instant now, Supplier<ECKey> keyGenerator) {
+        if (keys == null) {
+            keys = new JwtKeySet(keyGenerator.get(), now, keyGenerator.get(), List.of());
+        }
+        return keys;
+    }
+
+    @Override
+    public synchronized JwtKeySet rotate(String expectedSigningKeyId, Instant now, Instant retireUntil,
+                                         Supplier<ECKey> keyGenerator) {
+        JwtKeySet current = loadOrCreate(now, keyGenerator);
+        if (!current.signing().getKeyID().equals(expectedSigningKeyId)) {
+            return current;
+        }
+
+        List<JwtKeySet.RetiredKey> retired = new ArrayList<>();
+        for (JwtKeySet.RetiredKey key : current.retired()) {
+            if (key.removeAfter().isAfter(now)) {
+                retired.add(key);
+            }
+        }
+        retired.add(new JwtKeySet.RetiredKey(current.signing(), retireUntil));
+
+        keys = new JwtKeySet(current.next(), now, keyGenerator.get(), List.copyOf(retired));
+        return keys;
+    }
+}
@@ -5,16 +5,19 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.interfaces.JWTVerifier;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 @Slf4j
@@ -25,64 +28,91 @@ public class JWTUtil {
     private static final String CLAIM_USERNAME = "username";
     private static final String CLAIM_ROLES = "roles";
 
+    private static final long DEFAULT_VERIFIED_CACHE_SIZE = 10_000;
+
     private final String issuer;
     private final Duration expiration;
 
-    private final Algorithm algorithm;
+    private final JwtTokenMinter minter;
     @Getter
     private final JWTVerifier verifier;
 
+    private final Cache<ByteBuffer, JwtClaims> verifiedTokens;
+
+    public JWTUtil(JwtKeyRing keyRing, String issuer, long expiresMinutes, long leewaySeconds) {
+        this(keyRing, issuer, expiresMinutes, leewaySeconds, DEFAULT_VERIFIED_CACHE_SIZE);
+    }
+
+    @Autowired
     public JWTUtil(
-            @Value("${jwt.secret}") String secretKey,
-            @Value("${jwt.secret-base64:false}") boolean secretIsBase64,
+            JwtKeyRing keyRing,
             @Value("${jwt.issuer:NiN}") String issuer,
             @Value("${jwt.expiration-minutes:60}") long expiresMinutes,
-            @Value("${jwt.leeway-seconds:60}") long leewaySeconds
+            @Value("${jwt.leeway-seconds:60}") long leewaySeconds,
+            @Value("${jwt.verified-cache.maximum-size:10000}") long verifiedCacheSize
     ) {
         this.issuer = issuer;
         this.expiration = Duration.ofMinutes(expiresMinutes);
+        this.minter = new JwtTokenMinter(keyRing, issuer);
 
-        byte[] secretBytes = secretIsBase64
-                ? Base64.getDecoder().decode(secretKey)
-                : secretKey.getBytes(StandardCharsets.UTF_8);
-
-        this.algorithm = Algorithm.HMAC256(secretBytes);
-
-        this.verifier = JWT.require(algorithm)
+        this.verifier = JWT.require(Algorithm.ECDSA256(keyRing))
                 .withIssuer(this.issuer)
                 .acceptLeeway(leewaySeconds)
                 .build();
+
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
     }
 
     public String generateToken(Long userId, String username, Collection<String> roles) {
-        Instant now = Instant.now();
-        Instant issuedAt = Instant.from(now);
-        Instant expiresAt = Instant.from(now.plus(expiration));
-
-        var builder = JWT.create()
-                .withSubject(userId == null ? "" : String.valueOf(userId))
-                .withIssuer(issuer)
-                .withIssuedAt(issuedAt)
-                .withExpiresAt(expiresAt)
-                .withClaim(CLAIM_USER_ID, userId)
-                .withClaim(CLAIM_USERNAME, username);
-
-        if (roles != null && !roles.isEmpty()) {
-            builder.withArrayClaim(CLAIM_ROLES, roles.toArray(new String[0]));
-        }
+        long issuedAt = System.currentTimeMillis() / 1000;
 
-        return builder.sign(algorithm);
+        return minter.mint(UUID.randomUUID().toString(), userId, username, roles,
+                issuedAt, issuedAt + expiration.getSeconds());
     }
 
     public String generateToken(Long userId, String username) {
         return generateToken(userId, username, Collections.emptyList());
     }
 
-    public Optional<Long> tryExtractUserId(String token) {
+    public JwtClaims verifyAndParse(String token) {
+        if (token == null || token.isBlank()) {
+            throw new JwtValidationException("Token is empty");
+        }
+
+        ByteBuffer key = TokenDigest.of(token);
+        JwtClaims cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
         try {
             DecodedJWT decoded = verifier.verify(token);
-            return Optional.ofNullable(decoded.getClaim(CLAIM_USER_ID).asLong());
+            String[] roles = decoded.getClaim(CLAIM_ROLES).asArray(String.class);
+
+            JwtClaims claims = new JwtClaims(
+                    decoded.getId(),
+                    decoded.getClaim(CLAIM_USER_ID).asLong(),
+                    decoded.getClaim(CLAIM_USERNAME).asString(),
+                    roles == null ? List.of() : Arrays.asList(roles),
+                    decoded.getIssuedAtAsInstant(),
+                    decoded.getExpiresAtAsInstant());
+
+            if (claims.expiresAt() != null) {
+                verifiedTokens.put(key, claims);
+            }
+            return claims;
         } catch (JWTVerificationException e) {
+            throw new JwtValidationException("JWT verification failed: " + e.getMessage(), e);
+        }
+    }
+
+    public Optional<Long> tryExtractUserId(String token) {
+        try {
+            return Optional.ofNullable(verifyAndParse(token).userId());
+        } catch (JwtValidationException e) {
             log.debug("Failed to verify JWT when extracting userId: {}", e.getMessage());
             return Optional.empty();
         }
@@ -90,9 +120,8 @@ public class JWTUtil {
 
     public Optional<String> tryExtractUsername(String token) {
         try {
-            DecodedJWT decoded = verifier.verify(token);
-            return Optional.ofNullable(decoded.getClaim(CLAIM_USERNAME).asString());
-        } catch (JWTVerificationException e) {
+            return Optional.ofNullable(verifyAndParse(token).username());
+        } catch (JwtValidationException e) {
             log.debug("Failed to verify JWT when extracting username: {}", e.getMessage());
             return Optional.empty();
         }
@@ -100,11 +129,8 @@ public class JWTUtil {
 
     public List<String> tryExtractRoles(String token) {
         try {
-            DecodedJWT decoded = verifier.verify(token);
-            String[] roles = decoded.getClaim(CLAIM_ROLES).asArray(String.class);
-            if (roles == null) return Collections.emptyList();
-            return Arrays.asList(roles);
-        } catch (JWTVerificationException e) {
+            return verifyAndParse(token).roles();
+        } catch (JwtValidationException e) {
             log.debug("Failed to verify JWT when extracting roles: {}", e.getMessage());
             return Collections.emptyList();
         }
@@ -112,16 +138,13 @@ public class JWTUtil {
 
     public boolean validateToken(String token, UserDetails userDetails) {
         try {
-            DecodedJWT decodedJWT = verifier.verify(token);
-
-            String username = decodedJWT.getClaim(CLAIM_USERNAME).asString();
+            JwtClaims claims = verifyAndParse(token);
 
-            Date expires = decodedJWT.getExpiresAt();
-            boolean notExpired = expires != null && expires.after(Date.from(Instant.now()));
+            boolean notExpired = claims.expiresAt() != null && claims.expiresAt().isAfter(Instant.now());
 
-            return username != null && username.equals(userDetails.getUsername())
+            return claims.username() != null && claims.username().equals(userDetails.getUsername())
                     && notExpired;
-        } catch (JWTVerificationException e) {
+        } catch (JwtValidationException e) {
             log.debug("JWT validation failed: {}", e.getMessage());
             return false;
         }
@@ -131,6 +154,23 @@ public class JWTUtil {
         return expiration.getSeconds();
     }
 
+    private static final class UntilTokenExpiry implements Expiry<ByteBuffer, JwtClaims> {
+        @Override
+        public long expireAfterCreate(ByteBuffer key, JwtClaims claims, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), claims.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, JwtClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, JwtClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
     public static class JwtValidationException extends RuntimeException {
         public JwtValidationException(String message) { super(message); }
         public JwtValidationException(String message, Throwable cause) { super(message, cause); }
@@ -0,0 +1,16 @@
+package ua.nincorporation.userservice.security;
+
+import java.time.Instant;
+import java.util.List;
+
+public record JwtClaims(String tokenId,
+                        Long userId,
+                        String username,
+                        List<String> roles,
+                        Instant issuedAt,
+                        Instant expiresAt) {
+
+    public JwtClaims {
+        roles = roles == null ? List.of() : List.copyOf(roles);
+    }
+}
@@ -0,0 +1,218 @@
+package ua.nincorporation.userservice.security;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.ECDSAKeyProvider;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Slf4j
+@Component
+public class JwtKeyRing implements ECDSAKeyProvider {
+
+    private static final Duration DEFAULT_ROTATION_INTERVAL = Duration.ofHours(24);
+
+    private final JwtKeyStore store;
+    private final Duration rotationInterval;
+    private final Duration retention;
+    private final Clock clock;
+
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public JwtKeyRing(
+            JwtKeyStore store,
+            @Value("${jwt.keys.rotation-interval:PT24H}") Duration rotationInterval,
+            @Value("${jwt.expiration-minutes:60}") long expiresMinutes,
+            @Value("${jwt.leeway-seconds:60}") long leewaySeconds
+    ) {
+        this(store, rotationInterval, Duration.ofMinutes(expiresMinutes).plusSeconds(leewaySeconds), Clock.systemUTC());
+    }
+
+    // a ring with keys of its own, for tests and benchmarks that run without the database
+    public JwtKeyRing(long expiresMinutes, long leewaySeconds) {
+        this(Duration.ofMinutes(expiresMinutes).plusSeconds(leewaySeconds), Clock.systemUTC());
+    }
+
+    public JwtKeyRing(Duration retention, Clock clock) {
+        this(new InMemoryJwtKeyStore(), DEFAULT_ROTATION_INTERVAL, retention, clock);
+    }
+
+    public JwtKeyRing(JwtKeyStore store, Duration rotationInterval, Duration retention, Clock clock) {
+        this.store = store;
+        this.rotationInterval = rotationInterval;
+        this.retention = retention;
+        this.clock = clock;
+        this.snapshot = Snapshot.of(store.loadOrCreate(clock.instant(), JwtKeyRing::generateKey), clock.instant());
+    }
+
+    // every replica re-reads the shared set; the first one to find the signing key due rotates it for all
+    @Scheduled(
+            initialDelayString = "${jwt.keys.refresh-interval:PT1M}",
+            fixedDelayString = "${jwt.keys.refresh-interval:PT1M}")
+    public synchronized void refresh() {
+        Instant now = clock.instant();
+        JwtKeySet keys = store.loadOrCreate(now, JwtKeyRing::generateKey);
+        if (!keys.signingSince().plus(rotationInterval).isAfter(now)) {
+            keys = store.rotate(keys.signing().getKeyID(), now, now.plus(retention), JwtKeyRing::generateKey);
+        }
+        install(keys, now);
+    }
+
+    public synchronized void rotate() {
+        Instant now = clock.instant();
+        install(store.rotate(snapshot.signing().getKeyID(), now, now.plus(retention), JwtKeyRing::generateKey), now);
+    }
+
+    public Algorithm signingAlgorithm() {
+        return snapshot.signingAlgorithm();
+    }
+
+    public String signingKeyId() {
+        return snapshot.signing().getKeyID();
+    }
+
+    public SigningKey signingKey() {
+        return snapshot.signingKey();
+    }
+
+    public JWKSet publicKeys() {
+        return snapshot.publicKeys();
+    }
+
+    public String publicKeysJson() {
+        return snapshot.publicKeysJson();
+    }
+
+    public JWKSource<SecurityContext> jwkSource() {
+        return (selector, context) -> selector.select(snapshot.publicKeys());
+    }
+
+    @Override
+    public ECPublicKey getPublicKeyById(String keyId) {
+        return keyId == null ? null : snapshot.verificationKeys().get(keyId);
+    }
+
+    // the two reads may straddle a rotation; signingAlgorithm() pins key and kid to one snapshot
+    @Override
+    public ECPrivateKey getPrivateKey() {
+        return snapshot.signingKey().privateKey();
+    }
+
+    @Override
+    public String getPrivateKeyId() {
+        return snapshot.signingKey().keyId();
+    }
+
+    private void install(JwtKeySet keys, Instant now) {
+        Snapshot current = snapshot;
+        Snapshot updated = Snapshot.of(keys, now);
+        if (updated.keys().equals(current.keys()) && updated.retired().equals(current.retired())) {
+            return;
+        }
+        snapshot = updated;
+        if (!updated.signing().getKeyID().equals(current.signing().getKeyID())) {
+            log.info("Rotated JWT signing key to kid={}, {} retired key(s) still published",
+                    updated.signing().getKeyID(), updated.retired().size());
+        }
+    }
+
+    private static ECKey generateKey() {
+        try {
+            return new ECKeyGenerator(Curve.P_256)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(JWSAlgorithm.ES256)
+                    .keyID(UUID.randomUUID().toString())
+                    .generate();
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Failed to generate EC signing key", e);
+        }
+    }
+
+    public record SigningKey(String keyId, ECPrivateKey privateKey) {
+    }
+
+    private record Snapshot(JwtKeySet keys,
+                            ECKey signing,
+                            ECKey next,
+                            List<JwtKeySet.RetiredKey> retired,
+                            Algorithm signingAlgorithm,
+                            SigningKey signingKey,
+                            Map<String, ECPublicKey> verificationKeys,
+                            JWKSet publicKeys,
+                            String publicKeysJson) {
+
+        static Snapshot of(JwtKeySet keys, Instant now) {
+            ECKey signing = keys.signing();
+            ECKey next = keys.next();
+            List<JwtKeySet.RetiredKey> retired = keys.retired().stream()
+                    .filter(key -> key.removeAfter().isAfter(now))
+                    .toList();
+
+            List<JWK> published = new ArrayList<>();
+            published.add(signing.toPublicJWK());
+            published.add(next.toPublicJWK());
+            retired.forEach(key -> published.add(key.key().toPublicJWK()));
+
+            Map<String, ECPublicKey> verificationKeys = new HashMap<>();
+            try {
+                verificationKeys.put(signing.getKeyID(), signing.toECPublicKey());
+                verificationKeys.put(next.getKeyID(), next.toECPublicKey());
+                for (JwtKeySet.RetiredKey key : retired) {
+                    verificationKeys.put(key.key().getKeyID(), key.key().toECPublicKey());
+                }
+
+                SigningKey signingKey = new SigningKey(signing.getKeyID(), signing.toECPrivateKey());
+                Algorithm algorithm = Algorithm.ECDSA256(new FixedKeyProvider(
+                        signing.getKeyID(), signing.toECPublicKey(), signingKey.privateKey()));
+
+                JWKSet publicKeys = new JWKSet(published);
+                return new Snapshot(keys, signing, next, retired, algorithm, signingKey,
+                        Map.copyOf(verificationKeys), publicKeys, publicKeys.toString());
+            } catch (JOSEException e) {
+                throw new IllegalStateException("Failed to extract EC key material", e);
+            }
+        }
+    }
+
+    private record FixedKeyProvider(String keyId, ECPublicKey publicKey, ECPrivateKey privateKey)
+            implements ECDSAKeyProvider {
+        @Override
+        public ECPublicKey getPublicKeyById(String id) {
+            return keyId.equals(id) ? publicKey : null;
+        }
+
+        @Override
+        public ECPrivateKey getPrivateKey() {
+            return privateKey;
+        }
+
+        @Override
+        public String getPrivateKeyId() {
+            return keyId;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package ua.nincorporation.userservice.security;
+
+import com.nimbusds.jose.jwk.ECKey;
+
+import java.time.Instant;
+import java.util.List;
+
+public record JwtKeySet(ECKey signing, Instant signingSince, ECKey next, List<RetiredKey> retired) {
+
+    public record RetiredKey(ECKey key, Instant removeAfter) {
+    }
+}
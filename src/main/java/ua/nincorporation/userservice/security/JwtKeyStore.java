@@ -0,0 +1,16 @@
+package ua.nincorporation.userservice.security;
+
+import com.nimbusds.jose.jwk.ECKey;
+
+import java.time.Instant;
+import java.util.function.Supplier;
+
+// where the key ring's keys live; replicas sharing a store sign with and publish the same keys
+public interface JwtKeyStore {
+
+    // creates the first signing and next keys when the store is still empty
+    JwtKeySet loadOrCreate(Instant now, Supplier<ECKey> keyGenerator);
+
+    // a no-op returning the current set when another caller has already rotated away from expectedSigningKeyId
+    JwtKeySet rotate(String expectedSigningKeyId, Instant now, Instant retireUntil, Supplier<ECKey> keyGenerator);
+}
@@ -0,0 +1,149 @@
+package ua.nincorporation.userservice.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.Signature;
+import java.security.interfaces.ECPrivateKey;
+import java.util.Base64;
+import java.util.Collection;
+
+public class JwtTokenMinter {
+
+    // JWS wants the raw r||s signature rather than DER
+    private static final String SIGNATURE_ALGORITHM = "SHA256withECDSAinP1363Format";
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final JwtKeyRing keyRing;
+    private final String issuerMember;
+    private final ThreadLocal<ThreadState> threadState = ThreadLocal.withInitial(ThreadState::new);
+
+    private volatile EncodedHeader header;
+
+    public JwtTokenMinter(JwtKeyRing keyRing, String issuer) {
+        this.keyRing = keyRing;
+        StringBuilder member = new StringBuilder(",\"iss\":");
+        appendString(member, issuer);
+        this.issuerMember = member.toString();
+    }
+
+    public String mint(String tokenId,
+                       Long userId,
+                       String username,
+                       Collection<String> roles,
+                       long issuedAtSeconds,
+                       long expiresAtSeconds) {
+        JwtKeyRing.SigningKey signingKey = keyRing.signingKey();
+        EncodedHeader encodedHeader = headerFor(signingKey.keyId());
+        ThreadState state = threadState.get();
+
+        StringBuilder payload = state.payload();
+        payload.setLength(0);
+        payload.append("{\"jti\":");
+        appendString(payload, tokenId);
+        payload.append(",\"sub\":");
+        appendString(payload, userId == null ? "" : String.valueOf(userId));
+        payload.append(issuerMember)
+                .append(",\"iat\":").append(issuedAtSeconds)
+                .append(",\"exp\":").append(expiresAtSeconds);
+        if (userId != null) {
+            payload.append(",\"userId\":").append(userId.longValue());
+        }
+        if (username != null) {
+            payload.append(",\"username\":");
+            appendString(payload, username);
+        }
+        if (roles != null && !roles.isEmpty()) {
+            payload.append(",\"roles\":[");
+            boolean first = true;
+            for (String role : roles) {
+                if (!first) {
+                    payload.append(',');
+                }
+                appendString(payload, role);
+                first = false;
+            }
+            payload.append(']');
+        }
+        payload.append('}');
+
+        String encodedPayload = BASE64_URL.encodeToString(payload.toString().getBytes(StandardCharsets.UTF_8));
+        String signingInput = encodedHeader.value() + encodedPayload;
+
+        byte[] signature = state.sign(signingKey, signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + '.' + BASE64_URL.encodeToString(signature);
+    }
+
+    private EncodedHeader headerFor(String keyId) {
+        EncodedHeader current = header;
+        if (current == null || !current.keyId().equals(keyId)) {
+            StringBuilder json = new StringBuilder("{\"alg\":\"ES256\",\"typ\":\"JWT\",\"kid\":");
+            appendString(json, keyId);
+            json.append('}');
+            current = new EncodedHeader(keyId,
+                    BASE64_URL.encodeToString(json.toString().getBytes(StandardCharsets.UTF_8)) + '.');
+            header = current;
+        }
+        return current;
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                case '\b' -> out.append("\\b");
+                case '\f' -> out.append("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    private record EncodedHeader(String keyId, String value) {
+    }
+
+    private static final class ThreadState {
+        private final StringBuilder payload = new StringBuilder(256);
+        private final Signature signature;
+        private ECPrivateKey initializedWith;
+
+        private ThreadState() {
+            try {
+                this.signature = Signature.getInstance(SIGNATURE_ALGORITHM);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(SIGNATURE_ALGORITHM + " is not available", e);
+            }
+        }
+
+        StringBuilder payload() {
+            return payload;
+        }
+
+        byte[] sign(JwtKeyRing.SigningKey signingKey, byte[] input) {
+            try {
+                // a Signature resets after sign(), so it is re-initialised only when the key rotates
+                if (initializedWith != signingKey.privateKey()) {
+                    signature.initSign(signingKey.privateKey());
+                    initializedWith = signingKey.privateKey();
+                }
+                signature.update(input);
+                return signature.sign();
+            } catch (GeneralSecurityException e) {
+                initializedWith = null;
+                throw new IllegalStateException("Failed to sign JWT", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package ua.nincorporation.userservice.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.SupplierJwtDecoder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.text.ParseException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+@Slf4j
+public class OidcIdTokenDecoderFactory {
+
+    private static final String DISCOVERY_PATH = "/.well-known/openid-configuration";
+
+    private final String issuer;
+    private final ResourceRetriever retriever;
+    private final Function<URL, JWKSource<SecurityContext>> jwkSourceFactory;
+
+    public OidcIdTokenDecoderFactory(String issuer, ResourceRetriever retriever) {
+        this(issuer, retriever, jwksUrl -> JWKSourceBuilder.<SecurityContext>create(jwksUrl, retriever).build());
+    }
+
+    public OidcIdTokenDecoderFactory(String issuer,
+                                     ResourceRetriever retriever,
+                                     Function<URL, JWKSource<SecurityContext>> jwkSourceFactory) {
+        this.issuer = issuer;
+        this.retriever = retriever;
+        this.jwkSourceFactory = jwkSourceFactory;
+    }
+
+    // nothing is fetched until the first decode; a failed discovery is retried on the next call
+    public JwtDecoder lazyDecoder(OAuth2TokenValidator<Jwt> validator) {
+        return new SupplierJwtDecoder(() -> {
+            NimbusJwtDecoder decoder = discover();
+            decoder.setJwtValidator(validator);
+            return decoder;
+        });
+    }
+
+    private NimbusJwtDecoder discover() {
+        URL discoveryUrl = toUrl(issuer.replaceAll("/+$", "") + DISCOVERY_PATH);
+        Map<String, Object> configuration;
+        try {
+            configuration = JSONObjectUtils.parse(retriever.retrieveResource(discoveryUrl).getContent());
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Unable to resolve OIDC configuration for issuer " + issuer, e);
+        }
+
+        Object discoveredIssuer = configuration.get("issuer");
+        if (!issuer.equals(discoveredIssuer)) {
+            throw new IllegalStateException("Issuer " + discoveredIssuer + " in discovery document does not match " + issuer);
+        }
+        Object jwksUri = configuration.get("jwks_uri");
+        if (!(jwksUri instanceof String jwks)) {
+            throw new IllegalStateException("Discovery document for " + issuer + " has no jwks_uri");
+        }
+        log.info("Resolved OIDC configuration for {}, jwks_uri={}", issuer, jwks);
+
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(
+                signingAlgorithms(configuration), jwkSourceFactory.apply(toUrl(jwks))));
+        // Spring's validators own the claim checks
+        processor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        return new NimbusJwtDecoder(processor);
+    }
+
+    private static Set<JWSAlgorithm> signingAlgorithms(Map<String, Object> configuration) {
+        Set<JWSAlgorithm> algorithms = new HashSet<>();
+        if (configuration.get("id_token_signing_alg_values_supported") instanceof List<?> values) {
+            for (Object value : values) {
+                if (value instanceof String name && !"none".equals(name)) {
+                    algorithms.add(JWSAlgorithm.parse(name));
+                }
+            }
+        }
+        if (algorithms.isEmpty()) {
+            algorithms.add(JWSAlgorithm.RS256);
+        }
+        return algorithms;
+    }
+
+    private static URL toUrl(String value) {
+        try {
+            return URI.create(value).toURL();
+        } catch (IllegalArgumentException | IOException e) {
+            throw new IllegalStateException("Invalid URL " + value, e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ua.nincorporation.userservice.security;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.ResourceRetriever;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.IOException;
+import java.net.URL;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+public class RefreshingJwkSource implements JWKSource<SecurityContext> {
+
+    private static final String METRIC_PREFIX = "oidc.jwks";
+
+    private final URL jwksUrl;
+    private final ResourceRetriever retriever;
+    private final TaskScheduler scheduler;
+    private final Duration refreshInterval;
+    private final Duration minRefreshInterval;
+
+    private final Timer fetchSuccess;
+    private final Timer fetchFailure;
+    private final Counter rateLimited;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong lastRefreshStartedNanos = new AtomicLong();
+
+    private volatile JWKSet keys;
+    private volatile long lastSuccessNanos;
+
+    public RefreshingJwkSource(URL jwksUrl,
+                               ResourceRetriever retriever,
+                               TaskScheduler scheduler,
+                               Duration refreshInterval,
+                               Duration minRefreshInterval,
+                               MeterRegistry meterRegistry) {
+        this.jwksUrl = jwksUrl;
+        this.retriever = retriever;
+        this.scheduler = scheduler;
+        this.refreshInterval = refreshInterval;
+        this.minRefreshInterval = minRefreshInterval;
+
+        String host = jwksUrl.getHost();
+        this.fetchSuccess = Timer.builder(METRIC_PREFIX + ".fetch")
+                .tag("host", host).tag("outcome", "success")
+                .register(meterRegistry);
+        this.fetchFailure = Timer.builder(METRIC_PREFIX + ".fetch")
+                .tag("host", host).tag("outcome", "failure")
+                .register(meterRegistry);
+        this.rateLimited = Counter.builder(METRIC_PREFIX + ".refresh.rate_limited")
+                .description("Unknown-kid refreshes skipped because one ran recently")
+                .tag("host", host)
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".staleness", this, RefreshingJwkSource::stalenessSeconds)
+                .description("Seconds since the key set was last fetched successfully")
+                .tag("host", host)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector selector, SecurityContext context) throws KeySourceException {
+        JWKSet current = keys;
+        if (current == null) {
+            current = initialLoad();
+        }
+
+        List<JWK> selected = selector.select(current);
+        if (selected.isEmpty() && !selector.getMatcher().getKeyIDs().isEmpty()) {
+            // an unknown kid usually means the issuer rotated; answer from what we have and refresh behind it
+            requestRefresh();
+        }
+        return selected;
+    }
+
+    private synchronized JWKSet initialLoad() throws KeySourceException {
+        if (keys == null) {
+            lastRefreshStartedNanos.set(System.nanoTime());
+            try {
+                fetch();
+            } catch (IOException | ParseException e) {
+                throw new KeySourceException("Couldn't retrieve JWKS from " + jwksUrl, e);
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                scheduler.scheduleWithFixedDelay(this::refresh, Instant.now().plus(refreshInterval), refreshInterval);
+            }
+        }
+        return keys;
+    }
+
+    private void requestRefresh() {
+        long now = System.nanoTime();
+        long last = lastRefreshStartedNanos.get();
+        if (now - last < minRefreshInterval.toNanos() || !lastRefreshStartedNanos.compareAndSet(last, now)) {
+            rateLimited.increment();
+            return;
+        }
+        scheduler.schedule(this::refresh, Instant.now());
+    }
+
+    private void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lastRefreshStartedNanos.set(System.nanoTime());
+            fetch();
+        } catch (IOException | ParseException | RuntimeException e) {
+            log.warn("JWKS refresh from {} failed, keeping {} cached key(s): {}",
+                    jwksUrl, keys == null ? 0 : keys.size(), e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private void fetch() throws IOException, ParseException {
+        long start = System.nanoTime();
+        try {
+            JWKSet fetched = JWKSet.parse(retriever.retrieveResource(jwksUrl).getContent());
+            keys = fetched;
+            lastSuccessNanos = System.nanoTime();
+            fetchSuccess.record(lastSuccessNanos - start, TimeUnit.NANOSECONDS);
+        } catch (IOException | ParseException | RuntimeException e) {
+            fetchFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private double stalenessSeconds() {
+        return keys == null ? 0 : (System.nanoTime() - lastSuccessNanos) / 1_000_000_000.0;
+    }
+}
@@ -0,0 +1,68 @@
+package ua.nincorporation.userservice.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import ua.nincorporation.userservice.model.Role;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class RoleAuthorities {
+
+    private static final Role[] ROLES = Role.values();
+    private static final Map<String, Role> ROLE_BY_NAME = new HashMap<>();
+    // indexed by a bitmask of role ordinals, one immutable list per combination
+    private static final List<GrantedAuthority>[] BY_MASK = buildCombinations();
+
+    static {
+        for (Role role : ROLES) {
+            ROLE_BY_NAME.put(role.name(), role);
+        }
+    }
+
+    private RoleAuthorities() {
+    }
+
+    public static List<GrantedAuthority> of(Role role) {
+        return role == null ? BY_MASK[0] : BY_MASK[1 << role.ordinal()];
+    }
+
+    public static List<GrantedAuthority> fromClaim(Object claim) {
+        int mask = 0;
+        if (claim instanceof String single) {
+            mask = bit(single);
+        } else if (claim instanceof List<?> list) {
+            for (int i = 0; i < list.size(); i++) {
+                mask |= bit(list.get(i));
+            }
+        } else if (claim instanceof Collection<?> collection) {
+            for (Object value : collection) {
+                mask |= bit(value);
+            }
+        }
+        return BY_MASK[mask];
+    }
+
+    private static int bit(Object roleName) {
+        Role role = roleName instanceof String name ? ROLE_BY_NAME.get(name) : null;
+        return role == null ? 0 : 1 << role.ordinal();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<GrantedAuthority>[] buildCombinations() {
+        List<GrantedAuthority>[] combinations = new List[1 << ROLES.length];
+        for (int mask = 0; mask < combinations.length; mask++) {
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            for (Role role : ROLES) {
+                if ((mask & (1 << role.ordinal())) != 0) {
+                    authorities.add(new SimpleGrantedAuthority(role.name()));
+                }
+            }
+            combinations[mask] = List.copyOf(authorities);
+        }
+        return combinations;
+    }
+}
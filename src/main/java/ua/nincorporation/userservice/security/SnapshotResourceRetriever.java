@@ -0,0 +1,59 @@
+package ua.nincorporation.userservice.security;
+
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+@Slf4j
+public class SnapshotResourceRetriever implements ResourceRetriever {
+
+    private static final String SNAPSHOT_CONTENT_TYPE = "application/json";
+
+    private final ResourceRetriever delegate;
+    private final Path directory;
+
+    public SnapshotResourceRetriever(ResourceRetriever delegate, Path directory) {
+        this.delegate = delegate;
+        this.directory = directory;
+    }
+
+    @Override
+    public Resource retrieveResource(URL url) throws IOException {
+        Path snapshot = snapshotFile(url);
+        try {
+            Resource resource = delegate.retrieveResource(url);
+            write(snapshot, resource.getContent());
+            return resource;
+        } catch (IOException e) {
+            if (!Files.isReadable(snapshot)) {
+                throw e;
+            }
+            log.warn("Fetching {} failed ({}), serving the last good snapshot from {}", url, e.getMessage(), snapshot);
+            return new Resource(Files.readString(snapshot, StandardCharsets.UTF_8), SNAPSHOT_CONTENT_TYPE);
+        }
+    }
+
+    private void write(Path snapshot, String content) {
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, snapshot.getFileName().toString(), ".tmp");
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            // readers never see a half-written snapshot
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not persist snapshot {}: {}", snapshot, e.getMessage());
+        }
+    }
+
+    private Path snapshotFile(URL url) {
+        String name = (url.getHost() + url.getPath()).replaceAll("[^A-Za-z0-9.-]", "_");
+        return directory.resolve(name + ".json");
+    }
+}
@@ -3,6 +3,7 @@ package ua.nincorporation.userservice.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ua.nincorporation.userservice.dto.UserCreateDto;
 import ua.nincorporation.userservice.mapper.UserCreateMapper;
@@ -19,10 +20,11 @@ public class AuthenticationService {
 
     private final UserCreateMapper userCreateMapper;
 
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User register(UserCreateDto userDto){
         User user = preparePersonForRegistration(userDto);
 
+        // save() opens its own short transaction once the hash is ready
         return userRepository.save(user);
     }
 
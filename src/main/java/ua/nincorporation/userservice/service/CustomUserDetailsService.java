@@ -1,7 +1,9 @@
 package ua.nincorporation.userservice.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -10,21 +12,51 @@ import ua.nincorporation.userservice.model.User;
 import ua.nincorporation.userservice.repository.UserRepository;
 import ua.nincorporation.userservice.security.CustomUserDetails;
 
+import java.util.Optional;
+
 @Service
 @Transactional(readOnly = true)
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    UserCache userCache,
+                                    ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        UserCache.Credentials credentials = userCache.getCredentials(username, this::loadCredentials)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        return new CustomUserDetails(user);
+
+        // a fresh detached user per login, so updatePassword never mutates what the cache holds
+        return new CustomUserDetails(User.builder()
+                .id(credentials.id())
+                .username(credentials.username())
+                .password(credentials.password())
+                .role(credentials.role())
+                .build());
+    }
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        CustomUserDetails details = (CustomUserDetails) userDetails;
+        userRepository.updatePassword(details.getId(), newPassword);
+        details.user().setPassword(newPassword);
+        eventPublisher.publishEvent(new UserChangedEvent(details.getId(), details.getUsername(), null));
+        return details;
+    }
+
+    private Optional<UserCache.Credentials> loadCredentials(String username) {
+        return userRepository.findByUsername(username)
+                .map(user -> new UserCache.Credentials(user.getId(), user.getUsername(), user.getPassword(), user.getRole()));
     }
 }
@@ -0,0 +1,100 @@
+package ua.nincorporation.userservice.service;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClient;
+import ua.nincorporation.userservice.dto.GoogleTokenResponse;
+import ua.nincorporation.userservice.exception.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class GoogleOAuthClient {
+
+    public static final String UPSTREAM = "google-oauth";
+
+    private final RestClient restClient;
+    private final JwtDecoder googleIdTokenDecoder;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    private final String clientId;
+    private final String clientSecret;
+    private final String redirectUri;
+    private final String tokenUri;
+
+    public GoogleOAuthClient(
+            RestClient restClient,
+            @Qualifier("googleIdTokenDecoder") JwtDecoder googleIdTokenDecoder,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            BulkheadRegistry bulkheadRegistry,
+            @Value("${spring.security.oauth2.client.registration.google.client-id}") String clientId,
+            @Value("${spring.security.oauth2.client.registration.google.client-secret}") String clientSecret,
+            @Value("${spring.security.oauth2.client.registration.google.redirect-uri}") String redirectUri,
+            @Value("${app.google.token-uri:https://oauth2.googleapis.com/token}") String tokenUri
+    ) {
+        this.restClient = restClient;
+        this.googleIdTokenDecoder = googleIdTokenDecoder;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(UPSTREAM);
+        this.bulkhead = bulkheadRegistry.bulkhead(UPSTREAM);
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.redirectUri = redirectUri;
+        this.tokenUri = tokenUri;
+    }
+
+    public GoogleTokenResponse exchangeCode(String code, String codeVerifier) {
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("grant_type", "authorization_code");
+        form.add("code", code);
+        form.add("client_id", clientId);
+        form.add("client_secret", clientSecret);
+        form.add("redirect_uri", redirectUri);
+        form.add("code_verifier", codeVerifier);
+
+        return guarded(() -> restClient.post()
+                .uri(tokenUri)
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(form)
+                .retrieve()
+                .body(GoogleTokenResponse.class));
+    }
+
+    // the first decode resolves discovery and the JWKS over the network, so it shares the upstream guard
+    public Jwt decodeIdToken(String idToken) {
+        return guarded(() -> googleIdTokenDecoder.decode(idToken));
+    }
+
+    private <T> T guarded(Supplier<T> call) {
+        // the bulkhead sits outside so rejected calls never count against the circuit
+        Supplier<T> decorated = Bulkhead.decorateSupplier(bulkhead, CircuitBreaker.decorateSupplier(circuitBreaker, call));
+        try {
+            return decorated.get();
+        } catch (CallNotPermittedException e) {
+            throw new ServiceUnavailableException("Google sign-in is temporarily unavailable", openStateWait(), e);
+        } catch (BulkheadFullException e) {
+            log.warn("Google OAuth bulkhead is full, rejecting exchange");
+            throw new ServiceUnavailableException("Too many concurrent Google sign-ins", Duration.ofSeconds(1), e);
+        }
+    }
+
+    private Duration openStateWait() {
+        return Duration.ofMillis(circuitBreaker.getCircuitBreakerConfig().getWaitIntervalFunctionInOpenState().apply(1));
+    }
+}
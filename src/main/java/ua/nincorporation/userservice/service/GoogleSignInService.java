@@ -0,0 +1,85 @@
+package ua.nincorporation.userservice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Service;
+import ua.nincorporation.userservice.dto.GoogleTokenResponse;
+import ua.nincorporation.userservice.dto.LinkedAccountDto;
+import ua.nincorporation.userservice.security.TokenDigest;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@Slf4j
+@Service
+public class GoogleSignInService {
+
+    private final GoogleOAuthClient googleOAuthClient;
+    private final OidcLoginService oidcLoginService;
+
+    // in-flight and recently completed exchanges, keyed by code and verifier
+    private final AsyncCache<ByteBuffer, LinkedAccountDto> exchanges;
+
+    public GoogleSignInService(
+            GoogleOAuthClient googleOAuthClient,
+            OidcLoginService oidcLoginService,
+            @Value("${app.google.exchange.result-ttl:PT30S}") Duration resultTtl
+    ) {
+        this.googleOAuthClient = googleOAuthClient;
+        this.oidcLoginService = oidcLoginService;
+        this.exchanges = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(resultTtl)
+                .buildAsync();
+    }
+
+    public LinkedAccountDto signIn(String code, String codeVerifier) {
+        // the verifier is part of the key so a replayed code without it never shares the original result
+        ByteBuffer key = TokenDigest.of(code + ' ' + codeVerifier);
+
+        CompletableFuture<LinkedAccountDto> flight = new CompletableFuture<>();
+        CompletableFuture<LinkedAccountDto> leader = exchanges.asMap().putIfAbsent(key, flight);
+        if (leader != null) {
+            log.debug("Joining in-flight Google code exchange");
+            return await(leader);
+        }
+
+        try {
+            LinkedAccountDto account = exchange(code, codeVerifier);
+            flight.complete(account);
+            return account;
+        } catch (Throwable e) {
+            exchanges.asMap().remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private LinkedAccountDto exchange(String code, String codeVerifier) {
+        GoogleTokenResponse tokenResp = googleOAuthClient.exchangeCode(code, codeVerifier);
+
+        if (tokenResp == null || tokenResp.idToken() == null) {
+            throw new RuntimeException("No id_token in token response: " + tokenResp);
+        }
+
+        Jwt jwt = googleOAuthClient.decodeIdToken(tokenResp.idToken());
+
+        return oidcLoginService.findOrCreateByGoogleId(jwt);
+    }
+
+    private static LinkedAccountDto await(CompletableFuture<LinkedAccountDto> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
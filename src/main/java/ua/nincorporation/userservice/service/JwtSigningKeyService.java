@@ -0,0 +1,135 @@
+package ua.nincorporation.userservice.service;
+
+import com.nimbusds.jose.jwk.ECKey;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ua.nincorporation.userservice.model.JwtSigningKey;
+import ua.nincorporation.userservice.repository.JwtSigningKeyRepository;
+import ua.nincorporation.userservice.security.JwtKeySet;
+import ua.nincorporation.userservice.security.JwtKeyStore;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JwtSigningKeyService implements JwtKeyStore {
+
+    // pg_advisory_xact_lock key taken by every change to the key set
+    private static final long KEY_SET_LOCK = 0x6A77_746B_6579L;
+
+    private final JwtSigningKeyRepository jwtSigningKeyRepository;
+
+    @Override
+    @Transactional
+    public JwtKeySet loadOrCreate(Instant now, Supplier<ECKey> keyGenerator) {
+        List<JwtSigningKey> rows = jwtSigningKeyRepository.findAll();
+        if (signing(rows).isPresent() && next(rows).isPresent()) {
+            return toKeySet(rows);
+        }
+
+        // replicas starting together must not each create their own keys
+        jwtSigningKeyRepository.lock(KEY_SET_LOCK);
+        rows = jwtSigningKeyRepository.findAll();
+        LocalDateTime at = toLocal(now);
+        if (signing(rows).isEmpty()) {
+            Optional<JwtSigningKey> next = next(rows);
+            if (next.isPresent()) {
+                next.get().setActivatedAt(at);
+            } else {
+                jwtSigningKeyRepository.save(newKey(keyGenerator.get(), at, at));
+            }
+            rows = jwtSigningKeyRepository.findAll();
+        }
+        if (next(rows).isEmpty()) {
+            jwtSigningKeyRepository.save(newKey(keyGenerator.get(), at, null));
+            rows = jwtSigningKeyRepository.findAll();
+        }
+        log.info("Initialised shared JWT signing keys");
+        return toKeySet(rows);
+    }
+
+    @Override
+    @Transactional
+    public JwtKeySet rotate(String expectedSigningKeyId, Instant now, Instant retireUntil,
+                            Supplier<ECKey> keyGenerator) {
+        jwtSigningKeyRepository.lock(KEY_SET_LOCK);
+        List<JwtSigningKey> rows = jwtSigningKeyRepository.findAll();
+        Optional<JwtSigningKey> signing = signing(rows);
+        Optional<JwtSigningKey> next = next(rows);
+        if (signing.isEmpty() || next.isEmpty()) {
+            return loadOrCreate(now, keyGenerator);
+        }
+        if (!signing.get().getKid().equals(expectedSigningKeyId)) {
+            return toKeySet(rows);
+        }
+
+        LocalDateTime at = toLocal(now);
+        // tokens signed with the outgoing key stay verifiable until they expire
+        signing.get().setRetiredAt(at);
+        signing.get().setRemoveAfter(toLocal(retireUntil));
+        next.get().setActivatedAt(at);
+        jwtSigningKeyRepository.save(newKey(keyGenerator.get(), at, null));
+        jwtSigningKeyRepository.deleteRemovable(at);
+        return toKeySet(jwtSigningKeyRepository.findAll());
+    }
+
+    private static JwtSigningKey newKey(ECKey key, LocalDateTime createdAt, LocalDateTime activatedAt) {
+        return JwtSigningKey.builder()
+                .kid(key.getKeyID())
+                .jwk(key.toJSONString())
+                .createdAt(createdAt)
+                .activatedAt(activatedAt)
+                .build();
+    }
+
+    private static Optional<JwtSigningKey> signing(List<JwtSigningKey> rows) {
+        return rows.stream()
+                .filter(row -> row.getActivatedAt() != null && row.getRetiredAt() == null)
+                .max(Comparator.comparing(JwtSigningKey::getActivatedAt));
+    }
+
+    private static Optional<JwtSigningKey> next(List<JwtSigningKey> rows) {
+        return rows.stream()
+                .filter(row -> row.getActivatedAt() == null)
+                .max(Comparator.comparing(JwtSigningKey::getCreatedAt));
+    }
+
+    private static JwtKeySet toKeySet(List<JwtSigningKey> rows) {
+        JwtSigningKey signing = signing(rows).orElseThrow(() -> new IllegalStateException("No active JWT signing key"));
+        JwtSigningKey next = next(rows).orElseThrow(() -> new IllegalStateException("No pre-published JWT key"));
+        List<JwtKeySet.RetiredKey> retired = rows.stream()
+                .filter(row -> row.getRetiredAt() != null)
+                .sorted(Comparator.comparing(JwtSigningKey::getRetiredAt).thenComparing(JwtSigningKey::getKid))
+                .map(row -> new JwtKeySet.RetiredKey(parse(row), toInstant(row.getRemoveAfter())))
+                .toList();
+        return new JwtKeySet(parse(signing), toInstant(signing.getActivatedAt()), parse(next), retired);
+    }
+
+    private static ECKey parse(JwtSigningKey row) {
+        try {
+            return ECKey.parse(row.getJwk());
+        } catch (ParseException e) {
+            throw new IllegalStateException("Stored JWT key " + row.getKid() + " is not a valid EC JWK", e);
+        }
+    }
+
+    // the column keeps microseconds; truncating up front keeps a freshly written set equal to its re-read
+    private static LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant.truncatedTo(ChronoUnit.MICROS), ZoneId.systemDefault());
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
@@ -0,0 +1,75 @@
+package ua.nincorporation.userservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ua.nincorporation.userservice.dto.LinkedAccountDto;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class LinkedAccountCache {
+
+    // identity -> user id never changes once linked, so only the per-user half needs invalidating
+    private final Cache<ProviderIdentity, Long> identities;
+    private final Cache<Long, LinkedAccountDto> accounts;
+    // bumped by every eviction; the user behind an identity is only known once it is read,
+    // so a read is checked against every eviction made while it ran
+    private final AtomicLong generation = new AtomicLong();
+
+    public LinkedAccountCache(
+            @Value("${app.oidc.linked-account-cache.maximum-size:10000}") long maximumSize,
+            @Value("${app.oidc.linked-account-cache.expire-after-write:PT1M}") Duration expireAfterWrite
+    ) {
+        this.identities = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        this.accounts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    public Optional<LinkedAccountDto> get(String provider, String providerUserId) {
+        Long userId = identities.getIfPresent(new ProviderIdentity(provider, providerUserId));
+        return userId == null ? Optional.empty() : Optional.ofNullable(accounts.getIfPresent(userId));
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    // a read that overlapped an update or delete is answered but not cached, so it cannot undo the eviction;
+    // runs under the same map lock as evict, so no eviction can land between the check and the put
+    public void put(String provider, String providerUserId, LinkedAccountDto account, long readGeneration) {
+        accounts.asMap().compute(account.userId(), (userId, current) -> {
+            if (generation.get() != readGeneration) {
+                return current;
+            }
+            identities.put(new ProviderIdentity(provider, providerUserId), userId);
+            return account;
+        });
+    }
+
+    // other replicas never see this; the short expire-after-write bounds how long they serve the old account
+    public void evict(Long userId) {
+        accounts.asMap().compute(userId, (key, current) -> {
+            generation.incrementAndGet();
+            return null;
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.userId());
+    }
+
+    private record ProviderIdentity(String provider, String providerUserId) {
+    }
+}
@@ -1,40 +1,26 @@
 package ua.nincorporation.userservice.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.OAuth2Error;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import ua.nincorporation.userservice.dto.LinkedAccountDto;
 import ua.nincorporation.userservice.model.Role;
-import ua.nincorporation.userservice.model.User;
-import ua.nincorporation.userservice.model.UserProvider;
 import ua.nincorporation.userservice.repository.UserProviderRepository;
-import ua.nincorporation.userservice.repository.UserRepository;
+import ua.nincorporation.userservice.repository.UserProviderRepository.LinkedAccountRow;
 
 import java.time.LocalDate;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class OidcLoginService {
 
-    private final PasswordEncoder passwordEncoder;
-
-    private final UserRepository userRepository;
     private final UserProviderRepository providerRepository;
 
-    @Retryable(
-            retryFor = DataIntegrityViolationException.class,
-            maxAttempts = 2,
-            backoff = @Backoff(delay = 500)
-    )
-    @Transactional
-    public User findOrCreateByGoogleId(Jwt googleIdToken) {
+    private final LinkedAccountCache linkedAccountCache;
+
+    public LinkedAccountDto findOrCreateByGoogleId(Jwt googleIdToken) {
         String provider = "google";
         String sub = googleIdToken.getSubject();
         String email = googleIdToken.getClaimAsString("email");
@@ -45,26 +31,22 @@ public class OidcLoginService {
             throw new OAuth2AuthenticationException(new OAuth2Error("invalid_token", "email not verified", null));
         }
 
-        var linked = providerRepository.findByProviderAndProviderUserId(provider, sub)
-                .map(UserProvider::getUser);
-        if (linked.isPresent()) return linked.get();
+        // repeat logins are answered from memory without borrowing a connection
+        var cached = linkedAccountCache.get(provider, sub);
+        if (cached.isPresent()) return cached.get();
 
-        User user = userRepository.findByEmail(email).orElseGet(() -> {
-            User u = new User();
-            u.setEmail(email);
-            u.setUsername(name);
-            u.setPassword(passwordEncoder.encode(UUID.randomUUID().toString()));
-            u.setDateOfBirth(LocalDate.of(1990, 1, 1));
-            u.setRole(Role.USER);
-            return userRepository.saveAndFlush(u);
-        });
+        long generation = linkedAccountCache.generation();
+        LinkedAccountDto account = providerRepository.findLinkedAccount(provider, sub)
+                .orElseGet(() -> link(provider, sub, email, name));
 
-        UserProvider up = new UserProvider();
-        up.setUser(user);
-        up.setProvider(provider);
-        up.setProviderUserId(sub);
-        providerRepository.saveAndFlush(up);
+        linkedAccountCache.put(provider, sub, account, generation);
+        return account;
+    }
 
-        return user;
+    private LinkedAccountDto link(String provider, String sub, String email, String name) {
+        // OIDC sign-ups get no password, so there is nothing to hash
+        LinkedAccountRow row = providerRepository.upsertLinkedAccount(
+                provider, sub, email, name, LocalDate.of(1990, 1, 1));
+        return new LinkedAccountDto(row.getUserId(), row.getUsername(), Role.valueOf(row.getRole()));
     }
 }
@@ -0,0 +1,102 @@
+package ua.nincorporation.userservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ua.nincorporation.userservice.exception.InvalidTokenException;
+import ua.nincorporation.userservice.model.RefreshToken;
+import ua.nincorporation.userservice.model.User;
+import ua.nincorporation.userservice.repository.RefreshTokenRepository;
+import ua.nincorporation.userservice.repository.UserRepository;
+import ua.nincorporation.userservice.security.TokenDigest;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+@Transactional(readOnly = true)
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+
+    @Value("${jwt.refresh.expiration:P14D}")
+    private Duration expiration;
+
+    @Value("${jwt.refresh.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    @Transactional
+    public String issue(Long userId) {
+        return store(userRepository.getReferenceById(userId), UUID.randomUUID());
+    }
+
+    // a reused token revokes its whole family, and that delete must survive the 401
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public Rotation rotate(String refreshToken) {
+        RefreshToken current = refreshTokenRepository.findWithUserByTokenHash(TokenDigest.sha256(refreshToken))
+                .orElseThrow(() -> new InvalidTokenException("Unknown refresh token"));
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!current.getExpiresAt().isAfter(now)) {
+            throw new InvalidTokenException("Refresh token expired");
+        }
+
+        if (current.getUsedAt() != null || refreshTokenRepository.markUsed(current.getId(), now) == 0) {
+            int revoked = refreshTokenRepository.deleteByFamilyId(current.getFamilyId());
+            log.warn("Refresh token reuse detected for userId={}, revoked {} token(s) of family {}",
+                    current.getUser().getId(), revoked, current.getFamilyId());
+            throw new InvalidTokenException("Refresh token already used");
+        }
+
+        User user = current.getUser();
+        return new Rotation(user, store(user, current.getFamilyId()));
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh.purge-interval:PT1H}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int deleted;
+        do {
+            // every batch commits on its own so the purge never holds long row locks
+            deleted = refreshTokenRepository.deleteExpiredBatch(now, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+
+        if (total > 0) {
+            log.info("Purged {} expired refresh token(s)", total);
+        }
+    }
+
+    private String store(User user, UUID familyId) {
+        byte[] raw = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(raw);
+        String token = ENCODER.encodeToString(raw);
+
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(TokenDigest.sha256(token))
+                .user(user)
+                .familyId(familyId)
+                .expiresAt(LocalDateTime.now().plus(expiration))
+                .build());
+        return token;
+    }
+
+    public record Rotation(User user, String refreshToken) {
+    }
+}
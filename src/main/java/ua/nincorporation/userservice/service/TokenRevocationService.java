@@ -0,0 +1,106 @@
+package ua.nincorporation.userservice.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ua.nincorporation.userservice.model.RevokedToken;
+import ua.nincorporation.userservice.repository.RevokedTokenRepository;
+import ua.nincorporation.userservice.security.BloomFilter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long expectedRevocations;
+    private final Duration pollOverlap;
+
+    private final Map<String, LocalDateTime> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private volatile LocalDateTime lastPolledAt;
+
+    public TokenRevocationService(
+            RevokedTokenRepository revokedTokenRepository,
+            @Value("${jwt.revocation.expected-revocations:100000}") long expectedRevocations,
+            @Value("${jwt.revocation.poll-overlap:PT1M}") Duration pollOverlap
+    ) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedRevocations = expectedRevocations;
+        this.pollOverlap = pollOverlap;
+        this.filter = new BloomFilter(expectedRevocations, FALSE_POSITIVE_RATE);
+    }
+
+    @PostConstruct
+    void load() {
+        LocalDateTime now = LocalDateTime.now();
+        revokedTokenRepository.findByExpiresAtAfter(now).forEach(this::remember);
+        lastPolledAt = now;
+        log.info("Loaded {} revoked token(s)", revoked.size());
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        LocalDateTime expiresAt = revoked.get(jti);
+        return expiresAt != null && expiresAt.isAfter(LocalDateTime.now());
+    }
+
+    @Transactional
+    public void revoke(String jti, Instant expiresAt) {
+        RevokedToken token = RevokedToken.builder()
+                .jti(UUID.fromString(jti))
+                .expiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()))
+                .revokedAt(LocalDateTime.now())
+                .build();
+        revokedTokenRepository.save(token);
+        remember(token);
+    }
+
+    // picks up revocations made by other instances; the overlap covers transactions that committed late
+    @Scheduled(fixedDelayString = "${jwt.revocation.poll-interval:PT5S}")
+    public void pollRevocations() {
+        LocalDateTime now = LocalDateTime.now();
+        List<RevokedToken> recent = revokedTokenRepository.findByRevokedAtAfter(lastPolledAt.minus(pollOverlap));
+        recent.forEach(this::remember);
+        lastPolledAt = now;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.rebuild-interval:PT10M}")
+    public void dropExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (this) {
+            revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, 2L * revoked.size()), FALSE_POSITIVE_RATE);
+            revoked.keySet().forEach(rebuilt::put);
+            filter = rebuilt;
+        }
+
+        int purged = revokedTokenRepository.deleteExpired(now);
+        if (purged > 0) {
+            log.info("Purged {} expired revoked token(s)", purged);
+        }
+    }
+
+    private synchronized void remember(RevokedToken token) {
+        String jti = token.getJti().toString();
+        // the exact map is written first so a filter hit always finds its entry
+        revoked.put(jti, token.getExpiresAt());
+        filter.put(jti);
+    }
+}
@@ -0,0 +1,240 @@
+package ua.nincorporation.userservice.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ua.nincorporation.userservice.dto.BatchUserResultDto;
+import ua.nincorporation.userservice.dto.BatchUserResultDto.Status;
+import ua.nincorporation.userservice.dto.UserCreateDto;
+import ua.nincorporation.userservice.dto.UserReadDto;
+import ua.nincorporation.userservice.model.Role;
+import ua.nincorporation.userservice.security.PasswordHashingExecutor;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class UserBatchService {
+
+    private static final LocalDate MIN_DATE_OF_BIRTH = LocalDate.of(1900, 1, 1);
+    private static final int MAX_EMAIL_LENGTH = 128;
+
+    // DO NOTHING turns a duplicate into an update count of 0 instead of aborting the batch
+    private static final String INSERT_SQL = """
+            INSERT INTO user_service.users (username, password, email, date_of_birth, role)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT DO NOTHING""";
+    // the date_of_birth CHECK compares against the database's date, which can differ from the JVM's near midnight
+    private static final String SELECT_TODAY_SQL = "SELECT CURRENT_DATE";
+    private static final String SELECT_TAKEN_SQL = """
+            SELECT username, email FROM user_service.users WHERE username = ANY (?) OR email = ANY (?)""";
+    private static final String SELECT_CREATED_SQL = """
+            SELECT id, username, email, date_of_birth FROM user_service.users WHERE username = ANY (?)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final int hashingParallelism;
+
+    public UserBatchService(JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            PasswordEncoder passwordEncoder,
+                            Validator validator,
+                            PasswordHashingExecutor passwordHashingExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.hashingParallelism = passwordHashingExecutor.parallelism();
+    }
+
+    public List<BatchUserResultDto> createUsers(List<UserCreateDto> users) {
+        BatchUserResultDto[] results = new BatchUserResultDto[users.size()];
+        LocalDate today = jdbcTemplate.queryForObject(SELECT_TODAY_SQL, LocalDate.class);
+
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            String error = validate(users.get(i), today);
+            if (error == null) {
+                valid.add(i);
+            } else {
+                results[i] = BatchUserResultDto.failed(i, Status.INVALID, error);
+            }
+        }
+
+        List<Integer> unique = withoutDuplicates(users, valid, results);
+        Map<Integer, String> hashes = hashPasswords(users, unique, results);
+        List<Integer> hashed = unique.stream().filter(hashes::containsKey).toList();
+        if (!hashed.isEmpty()) {
+            insert(users, hashed, hashes, results);
+        }
+
+        log.info("Batch create: {} requested, {} created", users.size(),
+                Arrays.stream(results).filter(r -> r.status() == Status.CREATED).count());
+        return List.of(results);
+    }
+
+    private String validate(UserCreateDto user, LocalDate today) {
+        if (user == null) {
+            return "Entry is empty";
+        }
+        Set<ConstraintViolation<UserCreateDto>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        // the table enforces these with NOT NULL and CHECK constraints, which would abort the whole batch
+        if (user.email() == null || user.email().isBlank() || user.email().length() > MAX_EMAIL_LENGTH) {
+            return "email: must be present and at most " + MAX_EMAIL_LENGTH + " characters";
+        }
+        if (user.dateOfBirth() == null
+                || user.dateOfBirth().isBefore(MIN_DATE_OF_BIRTH)
+                || user.dateOfBirth().isAfter(today)) {
+            return "dateOfBirth: must be between " + MIN_DATE_OF_BIRTH + " and today";
+        }
+        return null;
+    }
+
+    // a hash costs far more than this one lookup, so entries bound to come back DUPLICATE skip it;
+    // ON CONFLICT DO NOTHING still catches users created in between
+    private List<Integer> withoutDuplicates(List<UserCreateDto> users, List<Integer> indexes,
+                                            BatchUserResultDto[] results) {
+        if (indexes.isEmpty()) {
+            return indexes;
+        }
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        RowCallbackHandler taken = rs -> {
+            usernames.add(rs.getString(1));
+            emails.add(rs.getString(2));
+        };
+        jdbcTemplate.query(
+                con -> {
+                    var statement = con.prepareStatement(SELECT_TAKEN_SQL);
+                    statement.setArray(1, con.createArrayOf("varchar",
+                            indexes.stream().map(index -> users.get(index).username()).toArray()));
+                    statement.setArray(2, con.createArrayOf("varchar",
+                            indexes.stream().map(index -> users.get(index).email()).toArray()));
+                    return statement;
+                },
+                taken);
+
+        // the first entry claims its username and email, so later repeats in the batch fail as they would on insert
+        List<Integer> unique = new ArrayList<>();
+        for (int index : indexes) {
+            UserCreateDto user = users.get(index);
+            if (usernames.contains(user.username()) || emails.contains(user.email())) {
+                results[index] = BatchUserResultDto.failed(index, Status.DUPLICATE, "Username or email already in use");
+            } else {
+                usernames.add(user.username());
+                emails.add(user.email());
+                unique.add(index);
+            }
+        }
+        return unique;
+    }
+
+    private Map<Integer, String> hashPasswords(List<UserCreateDto> users, List<Integer> indexes,
+                                               BatchUserResultDto[] results) {
+        // callers never outnumber the hashing pool, so a batch cannot fill its queue on its own
+        Semaphore permits = new Semaphore(hashingParallelism);
+        Map<Integer, Future<String>> futures = new HashMap<>();
+        Map<Integer, String> hashes = new HashMap<>();
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int index : indexes) {
+                String raw = users.get(index).password();
+                futures.put(index, callers.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return passwordEncoder.encode(raw);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            for (int index : indexes) {
+                try {
+                    hashes.put(index, futures.get(index).get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while hashing batch passwords", e);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() == null ? e : e.getCause();
+                    results[index] = BatchUserResultDto.failed(index, Status.FAILED, cause.getMessage());
+                }
+            }
+        }
+        return hashes;
+    }
+
+    private void insert(List<UserCreateDto> users, List<Integer> indexes, Map<Integer, String> hashes,
+                        BatchUserResultDto[] results) {
+        List<Object[]> rows = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            UserCreateDto user = users.get(index);
+            rows.add(new Object[]{
+                    user.username(),
+                    hashes.get(index),
+                    user.email(),
+                    Date.valueOf(user.dateOfBirth()),
+                    Role.USER.name()});
+        }
+
+        Map<String, UserReadDto> created = transactionTemplate.execute(status -> {
+            int[] counts = jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+
+            List<String> insertedUsernames = new ArrayList<>();
+            for (int i = 0; i < indexes.size(); i++) {
+                int index = indexes.get(i);
+                if (counts[i] == 0) {
+                    results[index] = BatchUserResultDto.failed(index, Status.DUPLICATE, "Username or email already in use");
+                } else {
+                    insertedUsernames.add(users.get(index).username());
+                }
+            }
+            if (insertedUsernames.isEmpty()) {
+                return Map.of();
+            }
+
+            return jdbcTemplate.query(
+                    con -> {
+                        var statement = con.prepareStatement(SELECT_CREATED_SQL);
+                        statement.setArray(1, con.createArrayOf("varchar", insertedUsernames.toArray()));
+                        return statement;
+                    },
+                    (rs, rowNum) -> new UserReadDto(
+                            rs.getLong(1), rs.getString(2), rs.getString(3), rs.getObject(4, LocalDate.class)))
+                    .stream()
+                    .collect(Collectors.toMap(UserReadDto::username, u -> u));
+        });
+
+        for (int index : indexes) {
+            if (results[index] == null) {
+                results[index] = BatchUserResultDto.created(index, created.get(users.get(index).username()));
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package ua.nincorporation.userservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ua.nincorporation.userservice.dto.UserReadDto;
+import ua.nincorporation.userservice.model.Role;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Component
+public class UserCache {
+
+    private static final String METRIC_PREFIX = "users.";
+
+    private final Cache<Long, UserReadDto> byId;
+    private final Cache<String, UserReadDto> byUsername;
+    private final Cache<String, UserReadDto> byEmail;
+    // password logins only; kept apart so the hash never sits next to the DTOs handed to controllers.
+    // a short lifetime bounds how long another replica keeps accepting a password changed elsewhere
+    private final Cache<String, Credentials> credentials;
+    // bumped per id, username and email on every eviction; a load that saw an older value may have
+    // read the row before the change. a string shared by a username and an email only costs a reload
+    private final Cache<Object, Long> generations;
+    // loads run outside the caches, so their latency is timed here rather than taken from Caffeine's stats
+    private final Map<Cache<?, ?>, Timer> loadDurations = new IdentityHashMap<>();
+
+    public UserCache(
+            @Value("${app.user-cache.maximum-size:100000}") long maximumSize,
+            @Value("${app.user-cache.expire-after-write:PT5M}") Duration expireAfterWrite,
+            @Value("${app.user-cache.credentials-expire-after-write:PT30S}") Duration credentialsExpireAfterWrite,
+            MeterRegistry meterRegistry
+    ) {
+        this.byId = build(maximumSize, expireAfterWrite, "by-id", meterRegistry);
+        this.byUsername = build(maximumSize, expireAfterWrite, "by-username", meterRegistry);
+        this.byEmail = build(maximumSize, expireAfterWrite, "by-email", meterRegistry);
+        this.credentials = build(maximumSize, credentialsExpireAfterWrite, "credentials", meterRegistry);
+        // outlives any load in flight, so a load that raced an eviction still sees the bump
+        this.generations = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(credentialsExpireAfterWrite)
+                .build();
+    }
+
+    // misses are not cached, so a user created after a failed lookup is found on the next one;
+    // a row read before a concurrent change is answered but not cached, as with credentials
+    public Optional<UserReadDto> getById(Long id, Function<Long, Optional<UserReadDto>> loader) {
+        return get(byId, id, loader);
+    }
+
+    public Optional<UserReadDto> getByUsername(String username, Function<String, Optional<UserReadDto>> loader) {
+        return get(byUsername, username, loader);
+    }
+
+    public Optional<UserReadDto> getByEmail(String email, Function<String, Optional<UserReadDto>> loader) {
+        return get(byEmail, email, loader);
+    }
+
+    public Map<Long, UserReadDto> getAll(Collection<Long> ids, Function<List<Long>, List<UserReadDto>> loader) {
+        Map<Long, UserReadDto> found = new HashMap<>(byId.getAllPresent(ids));
+        Map<Long, Long> misses = new LinkedHashMap<>();
+        for (Long id : ids) {
+            if (!found.containsKey(id)) {
+                misses.put(id, generation(id));
+            }
+        }
+        if (misses.isEmpty()) {
+            return found;
+        }
+
+        List<Long> missing = List.copyOf(misses.keySet());
+        for (UserReadDto user : timed(byId, () -> loader.apply(missing))) {
+            cacheIfUnchanged(user.id(), misses.get(user.id()), user);
+            found.put(user.id(), user);
+        }
+        return found;
+    }
+
+    // a login that read the row before a password change is answered but not cached, so it cannot
+    // put the old hash back after the change evicted it
+    public Optional<Credentials> getCredentials(String username, Function<String, Optional<Credentials>> loader) {
+        Credentials cached = credentials.getIfPresent(username);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long generation = generation(username);
+        Optional<Credentials> loaded = timed(credentials, () -> loader.apply(username));
+        loaded.ifPresent(value -> credentials.asMap().compute(username,
+                (key, current) -> generation(key) == generation ? value : current));
+        return loaded;
+    }
+
+    // runs under the row's byId lock, the same one cacheIfUnchanged takes, so a load can never slip in between
+    public void evict(Long userId, String username, String email) {
+        byId.asMap().compute(userId, (id, cached) -> {
+            bump(id);
+            // the cached row may carry other keys than the event if the caches were filled from an older version
+            if (cached != null) {
+                invalidateUsername(cached.username());
+                invalidateEmail(cached.email());
+            }
+            if (username != null) {
+                invalidateUsername(username);
+            }
+            if (email != null) {
+                invalidateEmail(email);
+            }
+            return null;
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.userId(), event.username(), event.email());
+    }
+
+    private <K> Optional<UserReadDto> get(Cache<K, UserReadDto> index, K key,
+                                          Function<K, Optional<UserReadDto>> loader) {
+        UserReadDto cached = index.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long generation = generation(key);
+        Optional<UserReadDto> loaded = timed(index, () -> loader.apply(key));
+        loaded.ifPresent(user -> cacheIfUnchanged(key, generation, user));
+        return loaded;
+    }
+
+    // the row is indexed under all its keys at once, or not at all if the key it was looked up by changed meanwhile
+    private void cacheIfUnchanged(Object key, long generation, UserReadDto user) {
+        byId.asMap().compute(user.id(), (id, current) -> {
+            if (generation(key) != generation) {
+                return current;
+            }
+            byUsername.put(user.username(), user);
+            byEmail.put(user.email(), user);
+            return user;
+        });
+    }
+
+    private void invalidateUsername(String username) {
+        byUsername.invalidate(username);
+        // also under the map lock of the guarded put in getCredentials; the one bump guards both
+        credentials.asMap().compute(username, (key, current) -> {
+            bump(key);
+            return null;
+        });
+    }
+
+    private void invalidateEmail(String email) {
+        bump(email);
+        byEmail.invalidate(email);
+    }
+
+    private <T> T timed(Cache<?, ?> cache, Supplier<T> load) {
+        return loadDurations.get(cache).record(load);
+    }
+
+    private void bump(Object key) {
+        generations.asMap().merge(key, 1L, Long::sum);
+    }
+
+    private long generation(Object key) {
+        Long generation = generations.getIfPresent(key);
+        return generation == null ? 0 : generation;
+    }
+
+    private <K, V> Cache<K, V> build(long maximumSize, Duration expireAfterWrite, String name,
+                                     MeterRegistry meterRegistry) {
+        Cache<K, V> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        // gets (hit/miss) and evictions come from the binder; the ratio is published as is
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, METRIC_PREFIX + name);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", METRIC_PREFIX + name)
+                .register(meterRegistry);
+        loadDurations.put(cache, Timer.builder("cache.load.duration")
+                .description("Time spent loading rows missing from the cache")
+                .tag("cache", METRIC_PREFIX + name)
+                .register(meterRegistry));
+        return cache;
+    }
+
+    public record Credentials(Long id, String username, String password, Role role) {
+    }
+}
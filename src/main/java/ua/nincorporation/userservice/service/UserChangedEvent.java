@@ -0,0 +1,5 @@
+package ua.nincorporation.userservice.service;
+
+// username and email are the values before the change, which is what caches are keyed by
+public record UserChangedEvent(Long userId, String username, String email) {
+}
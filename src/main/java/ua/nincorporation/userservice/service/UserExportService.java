@@ -0,0 +1,108 @@
+package ua.nincorporation.userservice.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ua.nincorporation.userservice.exception.ServiceUnavailableException;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+public class UserExportService {
+
+    private static final String EXPORT_QUERY =
+            "SELECT id, username, email, date_of_birth FROM user_service.users ORDER BY id";
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(30);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final JsonFactory jsonFactory;
+    // each export holds a pooled connection for its whole run
+    private final Semaphore slots;
+
+    public UserExportService(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${app.export.fetch-size:1000}") int fetchSize,
+            @Value("${app.export.max-concurrent:2}") int maxConcurrent
+    ) {
+        // PostgreSQL only streams through a server-side cursor with a fetch size inside a transaction
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.jsonFactory = objectMapper.getFactory();
+        this.slots = new Semaphore(maxConcurrent);
+    }
+
+    // turned away rather than queued, so a burst of exports cannot drain the connection pool
+    public ExportSlot reserveSlot() {
+        if (!slots.tryAcquire()) {
+            throw new ServiceUnavailableException("Too many exports in progress", RETRY_AFTER);
+        }
+        return new ExportSlot();
+    }
+
+    public long exportNdjson(OutputStream out) {
+        Long exported = readOnlyTransaction.execute(status -> {
+            AtomicLong rows = new AtomicLong();
+            try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                json.setRootValueSeparator(null);
+
+                jdbcTemplate.query(EXPORT_QUERY, rs -> {
+                    try {
+                        json.writeStartObject();
+                        json.writeNumberField("id", rs.getLong(1));
+                        json.writeStringField("username", rs.getString(2));
+                        json.writeStringField("email", rs.getString(3));
+                        LocalDate dateOfBirth = rs.getObject(4, LocalDate.class);
+                        json.writeStringField("dateOfBirth", dateOfBirth == null ? null : dateOfBirth.toString());
+                        json.writeEndObject();
+                        json.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    rows.incrementAndGet();
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return rows.get();
+        });
+
+        log.info("Exported {} user(s)", exported);
+        return exported == null ? 0 : exported;
+    }
+
+    public final class ExportSlot implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ExportSlot() {
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                slots.release();
+            }
+        }
+    }
+}
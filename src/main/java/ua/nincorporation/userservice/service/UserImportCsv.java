@@ -0,0 +1,172 @@
+package ua.nincorporation.userservice.service;
+
+import ua.nincorporation.userservice.exception.BadRequestException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// one CSV line in, one normalised users row out; quoted fields may not span lines
+final class UserImportCsv {
+
+    private static final LocalDate MIN_DATE_OF_BIRTH = LocalDate.of(1900, 1, 1);
+    private static final int MIN_USERNAME_LENGTH = 2;
+    private static final int MAX_USERNAME_LENGTH = 64;
+    private static final int MAX_EMAIL_LENGTH = 128;
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final Pattern BCRYPT = Pattern.compile("^\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+    private static final String BCRYPT_PREFIX = "{bcrypt}";
+
+    private final int username;
+    private final int email;
+    private final int dateOfBirth;
+    private final int password;
+    private final int columns;
+
+    private UserImportCsv(int username, int email, int dateOfBirth, int password, int columns) {
+        this.username = username;
+        this.email = email;
+        this.dateOfBirth = dateOfBirth;
+        this.password = password;
+        this.columns = columns;
+    }
+
+    static UserImportCsv fromHeader(String header) {
+        if (header == null) {
+            throw new BadRequestException("CSV is empty");
+        }
+        List<String> names = split(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        if (names == null) {
+            throw new BadRequestException("CSV header is malformed");
+        }
+        List<String> normalised = names.stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).toList();
+
+        int username = required(normalised, "username");
+        int email = required(normalised, "email");
+        int dateOfBirth = required(normalised, "date_of_birth");
+        return new UserImportCsv(username, email, dateOfBirth, normalised.indexOf("password"), normalised.size());
+    }
+
+    Row parse(String line) {
+        List<String> fields = split(line);
+        if (fields == null) {
+            throw new IllegalArgumentException("malformed quoting");
+        }
+        if (fields.size() != columns) {
+            throw new IllegalArgumentException("expected " + columns + " fields but found " + fields.size());
+        }
+
+        String name = fields.get(username).trim();
+        if (name.length() < MIN_USERNAME_LENGTH || name.length() > MAX_USERNAME_LENGTH) {
+            throw new IllegalArgumentException("username must be from " + MIN_USERNAME_LENGTH
+                    + " to " + MAX_USERNAME_LENGTH + " characters");
+        }
+
+        String mail = fields.get(email).trim().toLowerCase(Locale.ROOT);
+        if (mail.length() > MAX_EMAIL_LENGTH || !EMAIL.matcher(mail).matches()) {
+            throw new IllegalArgumentException("email is not a valid address of at most " + MAX_EMAIL_LENGTH
+                    + " characters");
+        }
+
+        LocalDate born;
+        try {
+            born = LocalDate.parse(fields.get(dateOfBirth).trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("date_of_birth is not an ISO date");
+        }
+        if (born.isBefore(MIN_DATE_OF_BIRTH) || born.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("date_of_birth must be between " + MIN_DATE_OF_BIRTH + " and today");
+        }
+
+        return new Row(name, password < 0 ? null : passwordHash(fields.get(password).trim()), mail, born);
+    }
+
+    // hashing millions of plaintext passwords is what made row-by-row creation slow; only hashes are accepted
+    private static String passwordHash(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        String hash = value.startsWith(BCRYPT_PREFIX) ? value.substring(BCRYPT_PREFIX.length()) : value;
+        if (!BCRYPT.matcher(hash).matches()) {
+            throw new IllegalArgumentException("password must be empty or a bcrypt hash");
+        }
+        return BCRYPT_PREFIX + hash;
+    }
+
+    private static int required(List<String> names, String column) {
+        int index = names.indexOf(column);
+        if (index < 0) {
+            throw new BadRequestException("CSV header is missing the " + column + " column");
+        }
+        return index;
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '"' && field.isEmpty() && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (wasQuoted) {
+                // text after a closing quote
+                return null;
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    record Row(String username, String password, String email, LocalDate dateOfBirth) {
+
+        // COPY ... WITH (FORMAT csv): an unquoted empty field is NULL, so every value is quoted
+        void appendCopyLine(StringBuilder out, String importId, long lineNo) {
+            out.append(importId).append(',').append(lineNo).append(',');
+            quote(out, username);
+            out.append(',');
+            if (password != null) {
+                quote(out, password);
+            }
+            out.append(',');
+            quote(out, email);
+            out.append(',').append(dateOfBirth).append('\n');
+        }
+
+        private static void quote(StringBuilder out, String value) {
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    out.append('"');
+                }
+                out.append(c);
+            }
+            out.append('"');
+        }
+    }
+}
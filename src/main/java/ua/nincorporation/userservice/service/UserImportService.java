@@ -0,0 +1,289 @@
+package ua.nincorporation.userservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ua.nincorporation.userservice.dto.UserImportDto;
+import ua.nincorporation.userservice.exception.BadRequestException;
+import ua.nincorporation.userservice.exception.ConflictException;
+import ua.nincorporation.userservice.model.UserImport;
+import ua.nincorporation.userservice.repository.UserImportRepository;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class UserImportService {
+
+    private static final String COPY_SQL = """
+            COPY user_service.user_import_staging (import_id, line_no, username, password, email, date_of_birth)
+            FROM STDIN WITH (FORMAT csv)""";
+    // merged in file order, so the first occurrence of a username or email wins and later ones count as duplicates
+    private static final String MERGE_SQL = """
+            INSERT INTO user_service.users (username, password, email, date_of_birth, role)
+            SELECT username, password, email, date_of_birth, 'USER'
+            FROM user_service.user_import_staging
+            WHERE import_id = ?
+            ORDER BY line_no
+            ON CONFLICT DO NOTHING""";
+    private static final String CLEAR_STAGING_SQL = "DELETE FROM user_service.user_import_staging WHERE import_id = ?";
+    private static final int READ_BUFFER = 64 * 1024;
+    private static final int COPY_BUFFER = 64 * 1024;
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final UserImportRepository userImportRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Duration staleAfter;
+    private final Duration heartbeatInterval;
+
+    public UserImportService(
+            UserImportRepository userImportRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.import.chunk-size:50000}") int chunkSize,
+            @Value("${app.import.stale-after:PT5M}") Duration staleAfter,
+            @Value("${app.import.heartbeat-interval:PT30S}") Duration heartbeatInterval
+    ) {
+        this.userImportRepository = userImportRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.staleAfter = staleAfter;
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    public Optional<UserImportDto> findImport(UUID id) {
+        return userImportRepository.findById(id).map(UserImportDto::of);
+    }
+
+    public UserImportDto startImport(InputStream csv) {
+        BufferedReader reader = reader(csv);
+        UserImportCsv format = UserImportCsv.fromHeader(readLine(reader));
+
+        LocalDateTime now = LocalDateTime.now();
+        UserImport job = userImportRepository.save(UserImport.builder()
+                .id(UUID.randomUUID())
+                .status(UserImport.Status.RUNNING)
+                .attempt(UUID.randomUUID())
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+        log.info("Started user import {}", job.getId());
+
+        return run(new Attempt(job.getId(), job.getAttempt()), format, reader, 0);
+    }
+
+    // the client uploads the same file again; lines up to the last committed chunk are skipped
+    public Optional<UserImportDto> resumeImport(UUID id, InputStream csv) {
+        Optional<UserImport> existing = userImportRepository.findById(id);
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+        if (existing.get().getStatus() == UserImport.Status.COMPLETED) {
+            throw new ConflictException("Import " + id + " has already completed");
+        }
+
+        BufferedReader reader = reader(csv);
+        UserImportCsv format = UserImportCsv.fromHeader(readLine(reader));
+
+        LocalDateTime now = LocalDateTime.now();
+        Attempt attempt = new Attempt(id, UUID.randomUUID());
+        if (userImportRepository.claim(id, attempt.token(), now.minus(staleAfter), now) == 0) {
+            throw new ConflictException("Import " + id + " is still running");
+        }
+        // read after the claim so a chunk the previous owner committed in between is not imported twice
+        long committed = userImportRepository.findById(id).orElseThrow().getLinesCommitted();
+        log.info("Resuming user import {} after line {}", id, committed);
+
+        return Optional.of(run(attempt, format, reader, committed));
+    }
+
+    private UserImportDto run(Attempt attempt, UserImportCsv format, BufferedReader reader, long committed) {
+        UUID id = attempt.importId();
+        try {
+            for (long skipped = 0; skipped < committed; skipped++) {
+                if (readLine(reader) == null) {
+                    throw new BadRequestException("Upload has fewer than the " + committed + " lines already imported");
+                }
+                heartbeat(attempt);
+            }
+
+            Chunk chunk = new Chunk(committed, 0, 0, 0, false);
+            while (!chunk.endOfInput()) {
+                // the upload is read before the transaction opens, so a slow client never holds a connection
+                StagedChunk staged = readChunk(attempt, format, reader, chunk.lastLine());
+                chunk = transactionTemplate.execute(status -> importChunk(attempt, staged));
+                log.debug("Import {} committed through line {}: {} imported, {} duplicate, {} rejected",
+                        id, chunk.lastLine(), chunk.imported(), chunk.duplicate(), chunk.rejected());
+            }
+
+            finish(attempt, UserImport.Status.COMPLETED, null);
+        } catch (BadRequestException e) {
+            // the wrong file for this job; it is released at once so the right one can be uploaded
+            finish(attempt, UserImport.Status.FAILED, e.getMessage());
+            throw e;
+        } catch (RuntimeException e) {
+            log.warn("User import {} failed, it can be resumed: {}", id, e.getMessage());
+            String error = String.valueOf(e.getMessage());
+            finish(attempt, UserImport.Status.FAILED,
+                    error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        }
+
+        UserImportDto result = findImport(id).orElseThrow();
+        log.info("User import {} {}: {} imported, {} duplicate, {} rejected", id, result.status(),
+                result.rowsImported(), result.rowsDuplicate(), result.rowsRejected());
+        return result;
+    }
+
+    // one chunk of the upload parsed into COPY input in memory, at most chunk-size lines
+    private StagedChunk readChunk(Attempt attempt, UserImportCsv format, BufferedReader reader, long from) {
+        String importId = attempt.importId().toString();
+        ByteArrayOutputStream rows = new ByteArrayOutputStream(COPY_BUFFER);
+        StringBuilder row = new StringBuilder(256);
+
+        long line = from;
+        long staged = 0;
+        long rejected = 0;
+        boolean endOfInput = false;
+
+        try (Writer copy = new OutputStreamWriter(rows, StandardCharsets.UTF_8)) {
+            while (line - from < chunkSize) {
+                String text = reader.readLine();
+                if (text == null) {
+                    endOfInput = true;
+                    break;
+                }
+                line++;
+                heartbeat(attempt);
+                if (text.isBlank()) {
+                    continue;
+                }
+
+                try {
+                    UserImportCsv.Row parsed = format.parse(text);
+                    row.setLength(0);
+                    parsed.appendCopyLine(row, importId, line);
+                    copy.append(row);
+                    staged++;
+                } catch (IllegalArgumentException e) {
+                    rejected++;
+                    log.debug("Import {} rejected data line {}: {}", attempt.importId(), line, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reading the upload failed at data line " + line, e);
+        }
+        return new StagedChunk(rows, line, staged, rejected, endOfInput);
+    }
+
+    // one transaction per chunk: staged rows, merged users and the progress counters commit or vanish together
+    private Chunk importChunk(Attempt attempt, StagedChunk chunk) {
+        UUID id = attempt.importId();
+        long imported = 0;
+        if (chunk.staged() > 0) {
+            jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                copy(con, chunk.rows());
+                return null;
+            });
+            imported = jdbcTemplate.update(MERGE_SQL, id);
+            jdbcTemplate.update(CLEAR_STAGING_SQL, id);
+        }
+        long duplicate = chunk.staged() - imported;
+
+        // a job taken over while this upload stalled refuses the update, and the chunk rolls back uncounted
+        if (userImportRepository.recordChunk(id, attempt.token(), chunk.lastLine(), imported, duplicate,
+                chunk.rejected(), LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("Import " + id + " was taken over by another upload");
+        }
+        return new Chunk(chunk.lastLine(), chunk.staged(), imported, chunk.rejected(), chunk.endOfInput());
+    }
+
+    private static void copy(Connection con, ByteArrayOutputStream rows) throws SQLException {
+        try (PGCopyOutputStream copy = new PGCopyOutputStream(con.unwrap(PGConnection.class), COPY_SQL, COPY_BUFFER)) {
+            rows.writeTo(copy);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Copying the chunk into staging failed", e);
+        }
+    }
+
+    // keeps updated_at moving while the upload is read, so a live job is never mistaken for an abandoned one
+    private void heartbeat(Attempt attempt) {
+        long now = System.nanoTime();
+        if (now - attempt.lastHeartbeat < heartbeatInterval.toNanos()) {
+            return;
+        }
+        if (userImportRepository.heartbeat(attempt.importId(), attempt.token(), LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("Import " + attempt.importId() + " was taken over by another upload");
+        }
+        attempt.lastHeartbeat = now;
+    }
+
+    private void finish(Attempt attempt, UserImport.Status status, String error) {
+        if (userImportRepository.finish(attempt.importId(), attempt.token(), status.name(), error,
+                LocalDateTime.now()) == 0) {
+            log.warn("User import {} was taken over by another upload, leaving it as is", attempt.importId());
+        }
+    }
+
+    private static BufferedReader reader(InputStream csv) {
+        return new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8), READ_BUFFER);
+    }
+
+    private static String readLine(BufferedReader reader) {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Attempt {
+        private final UUID importId;
+        private final UUID token;
+        private long lastHeartbeat = System.nanoTime();
+
+        private Attempt(UUID importId, UUID token) {
+            this.importId = importId;
+            this.token = token;
+        }
+
+        UUID importId() {
+            return importId;
+        }
+
+        UUID token() {
+            return token;
+        }
+    }
+
+    private record StagedChunk(ByteArrayOutputStream rows, long lastLine, long staged, long rejected,
+                               boolean endOfInput) {
+    }
+
+    private record Chunk(long lastLine, long staged, long imported, long rejected, boolean endOfInput) {
+        long duplicate() {
+            return staged - imported;
+        }
+    }
+}
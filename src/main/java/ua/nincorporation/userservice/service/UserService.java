@@ -1,10 +1,16 @@
 package ua.nincorporation.userservice.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ua.nincorporation.userservice.dto.UserCreateDto;
+import ua.nincorporation.userservice.dto.UserLookupDto;
+import ua.nincorporation.userservice.dto.UserPageDto;
 import ua.nincorporation.userservice.dto.UserReadDto;
 import ua.nincorporation.userservice.dto.UserUpdateDTO;
 import ua.nincorporation.userservice.exception.ConflictException;
@@ -14,8 +20,13 @@ import ua.nincorporation.userservice.mapper.UserUpdateMapper;
 import ua.nincorporation.userservice.model.User;
 import ua.nincorporation.userservice.repository.UserRepository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RequiredArgsConstructor
 @Service
@@ -28,28 +39,55 @@ public class UserService {
     private final UserCreateMapper userCreateMapper;
     private final UserUpdateMapper userUpdateMapper;
 
-    public List<UserReadDto> findAllUsers() {
-        return userRepository.findAll().stream()
-                .map(userReadMapper::toDto)
-                .toList();
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserCache userCache;
+
+    public UserPageDto findUsersPage(String cursor, int limit) {
+        long afterId = UserCursor.decode(cursor);
+
+        // one extra row tells whether another page exists without a count query
+        List<UserReadDto> users = userRepository.findReadDtoPage(afterId, Limit.of(limit + 1));
+        boolean hasNext = users.size() > limit;
+        List<UserReadDto> page = hasNext ? List.copyOf(users.subList(0, limit)) : users;
+
+        return new UserPageDto(page, hasNext ? UserCursor.encode(page.get(limit - 1).id()) : null);
     }
 
+    // reads select straight into the DTO: no managed entity, no password hash over the wire
     public Optional<UserReadDto> findUserById(Long id) {
-        return userRepository.findById(id)
-                .map(userReadMapper::toDto);
+        return userCache.getById(id, userRepository::findReadDtoById);
+    }
+
+    // cached users are served from memory and one IN query fetches the rest; the result keeps the
+    // requested order and names the ids that do not exist
+    public UserLookupDto lookupUsers(Collection<Long> ids) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+
+        Map<Long, UserReadDto> found = userCache.getAll(requested, userRepository::findReadDtoByIdIn);
+
+        List<UserReadDto> users = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            UserReadDto user = found.get(id);
+            if (user != null) {
+                users.add(user);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new UserLookupDto(users, missing);
     }
 
     public Optional<UserReadDto> findByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .map(userReadMapper::toDto);
+        return userCache.getByEmail(email, userRepository::findReadDtoByEmail);
     }
 
     public Optional<UserReadDto> findByUsername(String username) {
-        return userRepository.findByUsername(username)
-                .map(userReadMapper::toDto);
+        return userCache.getByUsername(username, userRepository::findReadDtoByUsername);
     }
 
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserReadDto createUser(UserCreateDto userDto) {
         return Optional.ofNullable(userDto)
                 .map(userCreateMapper::toEntity)
@@ -62,10 +100,22 @@ public class UserService {
                 .orElseThrow(() -> new IllegalArgumentException("userDto is null"));
     }
 
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<UserReadDto> updateUser(Long id, UserUpdateDTO updatedUser) {
-        return userRepository.findById(id)
+        // a hash costs far more than these lookups, so requests that will 404 or 409 are turned away before it;
+        // the transaction still checks again, a concurrent write can land in between
+        if (hasPassword(updatedUser)) {
+            if (!userRepository.existsById(id)) {
+                return Optional.empty();
+            }
+            checkAvailable(id, updatedUser.username(), updatedUser.email());
+        }
+        UserUpdateDTO encodedUpdate = encodePassword(updatedUser);
+
+        return transactionTemplate.execute(status -> userRepository.findById(id)
                 .map(user -> {
+                    UserChangedEvent changed = new UserChangedEvent(id, user.getUsername(), user.getEmail());
+
                     String newUsername = updatedUser.username();
                     if (newUsername != null && !newUsername.isBlank() && !newUsername.equals(user.getUsername())) {
                         if (userRepository.existsByUsernameAndIdNot(newUsername.trim(), id)) {
@@ -80,10 +130,37 @@ public class UserService {
                         }
                     }
 
-                    User userUpdated = userUpdateMapper.update(user, updatedUser);
-                    return userRepository.saveAndFlush(userUpdated);
+                    User userUpdated = userUpdateMapper.update(user, encodedUpdate);
+                    User saved = userRepository.saveAndFlush(userUpdated);
+                    eventPublisher.publishEvent(changed);
+                    return saved;
                 })
-                .map(userReadMapper::toDto);
+                .map(userReadMapper::toDto));
+    }
+
+    private void checkAvailable(Long id, String username, String email) {
+        if (username != null && !username.isBlank() && userRepository.existsByUsernameAndIdNot(username.trim(), id)) {
+            throw new ConflictException("Username already in use");
+        }
+        if (email != null && !email.isBlank()
+                && userRepository.existsByEmailAndIdNot(email.trim().toLowerCase(), id)) {
+            throw new ConflictException("Email already in use");
+        }
+    }
+
+    private static boolean hasPassword(UserUpdateDTO update) {
+        return update != null && update.password() != null && !update.password().isBlank();
+    }
+
+    private UserUpdateDTO encodePassword(UserUpdateDTO update) {
+        if (!hasPassword(update)) {
+            return update;
+        }
+        return new UserUpdateDTO(
+                update.username(),
+                passwordEncoder.encode(update.password()),
+                update.dateOfBirth(),
+                update.email());
     }
 
     @Transactional
@@ -92,6 +169,7 @@ public class UserService {
                 .map(entity -> {
                     userRepository.delete(entity);
                     userRepository.flush();
+                    eventPublisher.publishEvent(new UserChangedEvent(id, entity.getUsername(), entity.getEmail()));
                     return true;
                 })
                 .orElse(false);
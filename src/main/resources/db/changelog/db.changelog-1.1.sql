@@ -0,0 +1,16 @@
+--liquibase formatted sql
+
+--changeset lain:3
+CREATE TABLE user_service.refresh_token
+(
+    id         BIGINT PRIMARY KEY GENERATED BY DEFAULT AS IDENTITY,
+    token_hash BYTEA     NOT NULL UNIQUE,
+    user_id    BIGINT    NOT NULL REFERENCES user_service.users (id) ON DELETE CASCADE,
+    family_id  UUID      NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    used_at    TIMESTAMP
+);
+
+CREATE INDEX refresh_token_family_id_idx ON user_service.refresh_token (family_id);
+CREATE INDEX refresh_token_user_id_idx ON user_service.refresh_token (user_id);
+CREATE INDEX refresh_token_expires_at_idx ON user_service.refresh_token (expires_at);
@@ -0,0 +1,12 @@
+--liquibase formatted sql
+
+--changeset lain:4
+CREATE TABLE user_service.revoked_token
+(
+    jti        UUID PRIMARY KEY,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX revoked_token_revoked_at_idx ON user_service.revoked_token (revoked_at);
+CREATE INDEX revoked_token_expires_at_idx ON user_service.revoked_token (expires_at);
@@ -0,0 +1,4 @@
+--liquibase formatted sql
+
+--changeset lain:5
+ALTER TABLE user_service.users ALTER COLUMN password DROP NOT NULL;
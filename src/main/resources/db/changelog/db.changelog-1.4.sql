@@ -0,0 +1,28 @@
+--liquibase formatted sql
+
+--changeset lain:6
+CREATE TABLE user_service.user_import
+(
+    id              UUID PRIMARY KEY,
+    status          VARCHAR(16) NOT NULL,
+    lines_committed BIGINT      NOT NULL DEFAULT 0,
+    rows_imported   BIGINT      NOT NULL DEFAULT 0,
+    rows_duplicate  BIGINT      NOT NULL DEFAULT 0,
+    rows_rejected   BIGINT      NOT NULL DEFAULT 0,
+    error           VARCHAR(1024),
+    created_at      TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at      TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- only ever holds the chunk being merged, so crash safety is not worth the WAL
+CREATE UNLOGGED TABLE user_service.user_import_staging
+(
+    import_id     UUID         NOT NULL,
+    line_no       BIGINT       NOT NULL,
+    username      VARCHAR(64)  NOT NULL,
+    password      VARCHAR(255),
+    email         VARCHAR(128) NOT NULL,
+    date_of_birth DATE         NOT NULL
+);
+
+CREATE INDEX user_import_staging_import_id_idx ON user_service.user_import_staging (import_id);
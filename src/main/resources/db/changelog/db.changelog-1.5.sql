@@ -0,0 +1,13 @@
+--liquibase formatted sql
+
+--changeset lain:7
+-- the JWT signing keys every replica signs with and publishes; jwk holds the private JWK JSON
+CREATE TABLE user_service.jwt_signing_key
+(
+    kid          VARCHAR(64)   PRIMARY KEY,
+    jwk          VARCHAR(1024) NOT NULL,
+    created_at   TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    activated_at TIMESTAMP,
+    retired_at   TIMESTAMP,
+    remove_after TIMESTAMP
+);
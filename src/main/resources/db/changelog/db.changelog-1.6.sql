@@ -0,0 +1,5 @@
+--liquibase formatted sql
+
+--changeset lain:8
+-- the upload currently running the job; progress from any other attempt is refused
+ALTER TABLE user_service.user_import ADD COLUMN attempt UUID;
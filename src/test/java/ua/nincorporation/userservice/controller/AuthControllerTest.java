@@ -11,17 +11,22 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.core.Authentication;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import ua.nincorporation.userservice.dto.AuthRequestDTO;
+import ua.nincorporation.userservice.dto.RefreshTokenRequest;
 import ua.nincorporation.userservice.dto.UserCreateDto;
 import ua.nincorporation.userservice.model.Role;
 import ua.nincorporation.userservice.model.User;
 import ua.nincorporation.userservice.security.CustomUserDetails;
 import ua.nincorporation.userservice.security.JWTUtil;
+import ua.nincorporation.userservice.exception.InvalidTokenException;
 import ua.nincorporation.userservice.service.AuthenticationService;
+import ua.nincorporation.userservice.service.RefreshTokenService;
+import ua.nincorporation.userservice.service.TokenRevocationService;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -48,6 +53,10 @@ class AuthControllerTest {
     JWTUtil jwtUtil;
     @MockitoBean
     AuthenticationManager authenticationManager;
+    @MockitoBean
+    RefreshTokenService refreshTokenService;
+    @MockitoBean
+    TokenRevocationService tokenRevocationService;
 
     @Test
     void register_success_returnsCreatedAndHeader() throws Exception {
@@ -68,6 +77,7 @@ class AuthControllerTest {
         doReturn(savedUser).when(authenticationService).register(createDto);
         doReturn("jwt-token-xyz").when(jwtUtil).generateToken(eq(1L), eq("Ivan"), anyList());
         doReturn(60L).when(jwtUtil).getExpirationSeconds();
+        doReturn("refresh-abc").when(refreshTokenService).issue(1L);
 
         mockMvc.perform(post("/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -76,7 +86,8 @@ class AuthControllerTest {
                 .andExpect(header().string(HttpHeaders.AUTHORIZATION, "Bearer jwt-token-xyz"))
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.token").value("jwt-token-xyz"))
-                .andExpect(jsonPath("$.expiresIn").value(60));
+                .andExpect(jsonPath("$.expiresIn").value(60))
+                .andExpect(jsonPath("$.refreshToken").value("refresh-abc"));
 
         verify(authenticationService).register(createDto);
         verify(jwtUtil).generateToken(eq(1L), eq("Ivan"), anyList());
@@ -130,6 +141,20 @@ class AuthControllerTest {
         verifyNoInteractions(jwtUtil);
     }
 
+    @Test
+    void authenticate_passwordlessAccount_isMappedTo401() throws Exception {
+        AuthRequestDTO req = new AuthRequestDTO("Ivan","anything");
+        doThrow(new DisabledException("User is disabled")).when(authenticationManager).authenticate(any());
+
+        mockMvc.perform(post("/auth/authenticate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value("Invalid username or password"));
+
+        verifyNoInteractions(jwtUtil);
+    }
+
     @Test
     void register_validationError_returns400_whenRequiredMissing() throws Exception {
         UserCreateDto invalid = new UserCreateDto("", "", null, "not-an-email");
@@ -141,4 +166,46 @@ class AuthControllerTest {
 
         verifyNoInteractions(authenticationService, jwtUtil);
     }
-}
\ No newline at end of file
+
+    @Test
+    void refresh_success_returnsNewTokenPair() throws Exception {
+        User user = User.builder()
+                .id(1L)
+                .username("Ivan")
+                .role(Role.USER)
+                .build();
+        doReturn(new RefreshTokenService.Rotation(user, "refresh-new")).when(refreshTokenService).rotate("refresh-old");
+        doReturn("jwt-token-xyz").when(jwtUtil).generateToken(1L, "Ivan", List.of("USER"));
+        doReturn(60L).when(jwtUtil).getExpirationSeconds();
+
+        mockMvc.perform(post("/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest("refresh-old"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.AUTHORIZATION, "Bearer jwt-token-xyz"))
+                .andExpect(jsonPath("$.token").value("jwt-token-xyz"))
+                .andExpect(jsonPath("$.refreshToken").value("refresh-new"));
+
+        verifyNoInteractions(authenticationManager);
+    }
+
+    @Test
+    void refresh_reusedToken_returns401() throws Exception {
+        doThrow(new InvalidTokenException("Refresh token already used")).when(refreshTokenService).rotate("refresh-old");
+
+        mockMvc.perform(post("/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest("refresh-old"))))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(jwtUtil);
+    }
+
+    @Test
+    void logout_withoutBearerToken_returns401() throws Exception {
+        mockMvc.perform(post("/auth/logout"))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(tokenRevocationService);
+    }
+}
@@ -1,25 +1,46 @@
 package ua.nincorporation.userservice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ua.nincorporation.userservice.dto.BatchUserResultDto;
 import ua.nincorporation.userservice.dto.UserCreateDto;
+import ua.nincorporation.userservice.dto.UserLookupDto;
+import ua.nincorporation.userservice.dto.UserPageDto;
 import ua.nincorporation.userservice.dto.UserReadDto;
 import ua.nincorporation.userservice.dto.UserUpdateDTO;
+import ua.nincorporation.userservice.exception.ServiceUnavailableException;
+import ua.nincorporation.userservice.service.UserBatchService;
+import ua.nincorporation.userservice.service.UserExportService;
 import ua.nincorporation.userservice.service.UserService;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -41,29 +62,163 @@ class UserControllerTest {
     @MockitoBean
     private UserService userService;
 
+    @MockitoBean
+    private UserExportService userExportService;
+
+    @MockitoBean
+    private UserBatchService userBatchService;
+
+    private final UserExportService.ExportSlot exportSlot = mock(UserExportService.ExportSlot.class);
+
+    @BeforeEach
+    void reserveExportSlot() {
+        doReturn(exportSlot).when(userExportService).reserveSlot();
+    }
+
     // ---------------- GET /users ----------------
     @Test
-    void getAllUsers_returnsList() throws Exception {
-        UserReadDto userA = new UserReadDto("Alice", "alice@gmail.com", LocalDate.of(1990, 1, 1));
-        UserReadDto userB = new UserReadDto("Bob", "bob@gmail.com", LocalDate.of(1992, 2, 2));
+    void getAllUsers_returnsPage_withNextLink() throws Exception {
+        UserReadDto userA = new UserReadDto(1L, "Alice", "alice@gmail.com", LocalDate.of(1990, 1, 1));
+        UserReadDto userB = new UserReadDto(2L, "Bob", "bob@gmail.com", LocalDate.of(1992, 2, 2));
 
-        doReturn(List.of(userA, userB)).when(userService).findAllUsers();
+        doReturn(new UserPageDto(List.of(userA, userB), "next-cursor")).when(userService).findUsersPage(null, 2);
 
-        mockMvc.perform(get("/users")
+        mockMvc.perform(get("/users").param("limit", "2")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].username").value("Alice"))
-                .andExpect(jsonPath("$[1].username").value("Bob"));
+                .andExpect(jsonPath("$.items[0].username").value("Alice"))
+                .andExpect(jsonPath("$.items[1].username").value("Bob"))
+                .andExpect(jsonPath("$.nextCursor").value("next-cursor"))
+                .andExpect(header().string("Link", "<http://localhost/users?limit=2&cursor=next-cursor>; rel=\"next\""));
 
-        verify(userService).findAllUsers();
+        verify(userService).findUsersPage(null, 2);
         verifyNoMoreInteractions(userService);
     }
 
+    @Test
+    void getAllUsers_lastPage_hasNoLink() throws Exception {
+        doReturn(new UserPageDto(List.of(), null)).when(userService).findUsersPage("c", 50);
+
+        mockMvc.perform(get("/users").param("cursor", "c"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    void getAllUsers_limitOutOfRange_returns400() throws Exception {
+        mockMvc.perform(get("/users").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userService);
+    }
+
+    // ---------------- GET /users/export ----------------
+    @Test
+    void exportUsers_streamsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        }).when(userExportService).exportNdjson(any());
+
+        MvcResult result = mockMvc.perform(get("/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    @Test
+    void exportUsers_gzipsWhenAccepted() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(userExportService).exportNdjson(any());
+
+        MvcResult result = mockMvc.perform(get("/users/export").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":1}\n");
+        }
+    }
+
+    @Test
+    void exportUsers_doesNotGzip_whenGzipIsRefusedWithZeroQuality() throws Exception {
+        doReturn(0L).when(userExportService).exportNdjson(any());
+
+        MvcResult result = mockMvc.perform(get("/users/export").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *;q=1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void exportUsers_gzips_whenAcceptedThroughWildcard() throws Exception {
+        doReturn(0L).when(userExportService).exportNdjson(any());
+
+        MvcResult result = mockMvc.perform(get("/users/export").header(HttpHeaders.ACCEPT_ENCODING, "identity, *;q=0.5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+    }
+
+    @Test
+    void exportUsers_releasesSlot_whenTheExportTimesOut() throws Exception {
+        CountDownLatch finish = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            finish.await(5, TimeUnit.SECONDS);
+            return 0L;
+        }).when(userExportService).exportNdjson(any());
+
+        MvcResult result = mockMvc.perform(get("/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        try {
+            MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+            for (AsyncListener listener : asyncContext.getListeners()) {
+                listener.onTimeout(new AsyncEvent(asyncContext));
+            }
+
+            verify(exportSlot).close();
+        } finally {
+            finish.countDown();
+        }
+    }
+
+    @Test
+    void exportUsers_returns503_whenTooManyExportsAreRunning() throws Exception {
+        doThrow(new ServiceUnavailableException("Too many exports in progress", Duration.ofSeconds(30)))
+                .when(userExportService).reserveSlot();
+
+        mockMvc.perform(get("/users/export"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
+
+        verify(userExportService, never()).exportNdjson(any());
+    }
+
     // ---------------- GET /users/{id} ----------------
     @Test
     void getUserById_found_returns200() throws Exception {
-        UserReadDto readDto = new UserReadDto("ivan", "ivan@gmail.com", LocalDate.of(1990,1,1));
+        UserReadDto readDto = new UserReadDto(null, "ivan", "ivan@gmail.com", LocalDate.of(1990,1,1));
 
         doReturn(Optional.of(readDto)).when(userService).findUserById(1L);
 
@@ -93,7 +248,7 @@ class UserControllerTest {
     @Test
     void createUser_success_returns201_andBody() throws Exception {
         UserCreateDto createDto = new UserCreateDto("Ivan", "rawPassword", LocalDate.of(1990,1,1), "ivan@gmail.com");
-        UserReadDto created = new UserReadDto("Ivan", "ivan@gmail.com", LocalDate.of(1990,1,1));
+        UserReadDto created = new UserReadDto(null, "Ivan", "ivan@gmail.com", LocalDate.of(1990,1,1));
 
         doReturn(created).when(userService).createUser(createDto);
 
@@ -121,11 +276,73 @@ class UserControllerTest {
         verifyNoInteractions(userService);
     }
 
+    // ---------------- POST /users/batch ----------------
+    @Test
+    void createUsers_returnsPerItemResults() throws Exception {
+        List<UserCreateDto> batch = List.of(
+                new UserCreateDto("Ivan", "1234", LocalDate.of(1990, 1, 1), "ivan@gmail.com"),
+                new UserCreateDto("Ivan", "1234", LocalDate.of(1990, 1, 1), "ivan2@gmail.com"));
+        UserReadDto created = new UserReadDto(1L, "Ivan", "ivan@gmail.com", LocalDate.of(1990, 1, 1));
+
+        doReturn(List.of(
+                BatchUserResultDto.created(0, created),
+                BatchUserResultDto.failed(1, BatchUserResultDto.Status.DUPLICATE, "Username or email already in use")))
+                .when(userBatchService).createUsers(batch);
+
+        mockMvc.perform(post("/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].user.id").value(1))
+                .andExpect(jsonPath("$[1].status").value("DUPLICATE"));
+
+        verify(userBatchService).createUsers(batch);
+    }
+
+    @Test
+    void createUsers_emptyBatch_returns400() throws Exception {
+        mockMvc.perform(post("/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userBatchService);
+    }
+
+    // ---------------- POST /users/lookup ----------------
+    @Test
+    void lookupUsers_returnsFoundAndMissing() throws Exception {
+        UserReadDto found = new UserReadDto(1L, "Ivan", "ivan@gmail.com", LocalDate.of(1990, 1, 1));
+        doReturn(new UserLookupDto(List.of(found), List.of(2L))).when(userService).lookupUsers(List.of(1L, 2L));
+
+        mockMvc.perform(post("/users/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1,2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].id").value(1))
+                .andExpect(jsonPath("$.missing[0]").value(2));
+
+        verify(userService).lookupUsers(List.of(1L, 2L));
+    }
+
+    @Test
+    void lookupUsers_tooManyIds_returns400() throws Exception {
+        String ids = objectMapper.writeValueAsString(LongStream.rangeClosed(1, 501).boxed().toList());
+
+        mockMvc.perform(post("/users/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ids))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userService);
+    }
+
     // ---------------- PATCH /users/{id} ----------------
     @Test
     void updateUser_success_returns200() throws Exception {
         UserUpdateDTO updateDto = new UserUpdateDTO("Bob","5678", LocalDate.of(1991,2,2), "bob@gmail.com");
-        UserReadDto updated = new UserReadDto("Bob","bob@gmail.com", LocalDate.of(1991,2,2));
+        UserReadDto updated = new UserReadDto(null, "Bob","bob@gmail.com", LocalDate.of(1991,2,2));
 
         doReturn(Optional.of(updated)).when(userService).updateUser(1L, updateDto);
 
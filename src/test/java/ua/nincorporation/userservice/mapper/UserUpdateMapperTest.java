@@ -1,26 +1,16 @@
 package ua.nincorporation.userservice.mapper;
 
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import ua.nincorporation.userservice.dto.UserUpdateDTO;
 import ua.nincorporation.userservice.model.User;
 
 import java.time.LocalDate;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.doReturn;
 
-@ExtendWith(MockitoExtension.class)
 class UserUpdateMapperTest {
 
-    @Mock
-    private PasswordEncoder passwordEncoder;
-    @InjectMocks
-    private UserUpdateMapper mapper;
+    private final UserUpdateMapper mapper = new UserUpdateMapper();
 
     @Test
     void update_mapsFields() {
@@ -33,12 +23,10 @@ class UserUpdateMapperTest {
                 .build();
         UserUpdateDTO updateDto = new UserUpdateDTO(
                 "Bob",
-                "5678",
+                "encoded5678",
                 LocalDate.of(1991, 2, 2),
                 "bob@gmail.com");
 
-        doReturn("encoded5678").when(passwordEncoder).encode("5678");
-
         User updated = mapper.update(user, updateDto);
 
         assertThat(updated).isNotNull();
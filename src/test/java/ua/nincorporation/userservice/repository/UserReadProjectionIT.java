@@ -0,0 +1,111 @@
+package ua.nincorporation.userservice.repository;
+
+import com.sun.management.ThreadMXBean;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ua.nincorporation.userservice.dto.UserReadDto;
+import ua.nincorporation.userservice.integration.IntegrationTestBase;
+import ua.nincorporation.userservice.mapper.UserReadMapperImpl;
+import ua.nincorporation.userservice.model.User;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// compares the entity + MapStruct read path with the JPQL constructor projection on a hot id lookup
+@Slf4j
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(UserReadMapperImpl.class)
+class UserReadProjectionIT extends IntegrationTestBase {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 5_000;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserReadMapperImpl userReadMapper;
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long userId;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        userId = userRepository.saveAndFlush(User.builder()
+                .username("projection")
+                .password("{bcrypt}$2a$12$abcdefghijklmnopqrstuuJ0YbKk6vQ7jB0Hq5yZ7Q6uQGz2Jm9e")
+                .email("projection@example.com")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .build()).getId();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findReadDtoById_loadsNoEntity() {
+        assertThat(userRepository.findReadDtoById(userId)).get()
+                .extracting(UserReadDto::username).isEqualTo("projection");
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    void findReadDtoById_allocatesLessThanEntityPath() {
+        Supplier<UserReadDto> entityPath = () -> {
+            UserReadDto dto = userRepository.findById(userId).map(userReadMapper::toDto).orElseThrow();
+            entityManager.clear();
+            return dto;
+        };
+        Supplier<UserReadDto> projectionPath = () -> {
+            UserReadDto dto = userRepository.findReadDtoById(userId).orElseThrow();
+            entityManager.clear();
+            return dto;
+        };
+
+        assertThat(projectionPath.get()).isEqualTo(entityPath.get());
+
+        Sample entity = measure(entityPath);
+        Sample projection = measure(projectionPath);
+        log.info("findById + mapper: {} B/op, {} us/op; findReadDtoById: {} B/op, {} us/op",
+                entity.bytesPerOp(), entity.microsPerOp(), projection.bytesPerOp(), projection.microsPerOp());
+
+        assertThat(projection.bytesPerOp()).isLessThan(entity.bytesPerOp());
+    }
+
+    private static Sample measure(Supplier<UserReadDto> lookup) {
+        for (int i = 0; i < WARMUP; i++) {
+            lookup.get();
+        }
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            lookup.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+        return new Sample(allocated / ITERATIONS, elapsed / 1_000.0 / ITERATIONS);
+    }
+
+    private record Sample(long bytesPerOp, double microsPerOp) {
+    }
+}
@@ -3,13 +3,16 @@ package ua.nincorporation.userservice.repository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.annotation.Rollback;
+import ua.nincorporation.userservice.dto.UserReadDto;
 import ua.nincorporation.userservice.integration.IntegrationTestBase;
 import ua.nincorporation.userservice.model.User;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -56,6 +59,29 @@ class UserRepositoryIT extends IntegrationTestBase {
         assertThat(userRepository.existsByEmailAndIdNot("u2@example.com", b.getId())).isFalse();
     }
 
+    @Test
+    void findReadDtoPage_walksPagesByKeyset() {
+        User a = userRepository.saveAndFlush(createUser("k1", "k1@example.com"));
+        User b = userRepository.saveAndFlush(createUser("k2", "k2@example.com"));
+        User c = userRepository.saveAndFlush(createUser("k3", "k3@example.com"));
+
+        List<UserReadDto> first = userRepository.findReadDtoPage(a.getId() - 1, Limit.of(2));
+        List<UserReadDto> second = userRepository.findReadDtoPage(first.get(1).id(), Limit.of(2));
+
+        assertThat(first).extracting(UserReadDto::id).containsExactly(a.getId(), b.getId());
+        assertThat(second).extracting(UserReadDto::id).containsExactly(c.getId());
+    }
+
+    @Test
+    void findReadDtoByIdIn_returnsOnlyExistingIds() {
+        User a = userRepository.saveAndFlush(createUser("l1", "l1@example.com"));
+        User b = userRepository.saveAndFlush(createUser("l2", "l2@example.com"));
+
+        List<UserReadDto> found = userRepository.findReadDtoByIdIn(List.of(a.getId(), b.getId(), b.getId() + 1000));
+
+        assertThat(found).extracting(UserReadDto::username).containsExactlyInAnyOrder("l1", "l2");
+    }
+
     @Test
     void uniqueConstraint_onEmail_throwsException() {
         // предполагая, что в БД есть unique constraint на email (entity @Column(unique=true))
@@ -0,0 +1,27 @@
+package ua.nincorporation.userservice.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BCryptWorkFactorCalibratorTest {
+
+    @Test
+    void calibrate_returnsMaxStrength_whenBudgetIsGenerous() {
+        assertThat(BCryptWorkFactorCalibrator.calibrate(Duration.ofMinutes(1), 4, 6)).isEqualTo(6);
+    }
+
+    @Test
+    void calibrate_returnsMinStrength_whenBudgetIsTooSmall() {
+        assertThat(BCryptWorkFactorCalibrator.calibrate(Duration.ZERO, 4, 6)).isEqualTo(4);
+    }
+
+    @Test
+    void calibrate_rejectsInvertedRange() {
+        assertThatThrownBy(() -> BCryptWorkFactorCalibrator.calibrate(Duration.ofMillis(100), 8, 6))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
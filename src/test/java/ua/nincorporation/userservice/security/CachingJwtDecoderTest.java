@@ -0,0 +1,85 @@
+package ua.nincorporation.userservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class CachingJwtDecoderTest {
+
+    private final JwtDecoder delegate = mock(JwtDecoder.class);
+
+    private final CachingJwtDecoder decoder = new CachingJwtDecoder(
+            delegate,
+            JwtValidators.createDefaultWithIssuer("NiN"),
+            100,
+            Duration.ofHours(1),
+            "jwt.decoder");
+
+    @Test
+    void decode_callsDelegateOnce_forRepeatedToken() {
+        Jwt jwt = jwt("NiN", Instant.now().plusSeconds(600));
+        doReturn(jwt).when(delegate).decode("token-a");
+
+        assertThat(decoder.decode("token-a")).isSameAs(jwt);
+        assertThat(decoder.decode("token-a")).isSameAs(jwt);
+
+        verify(delegate, times(1)).decode("token-a");
+    }
+
+    @Test
+    void decode_runsValidators_forCachedToken() {
+        Jwt jwt = jwt("someone-else", Instant.now().plusSeconds(600));
+        doReturn(jwt).when(delegate).decode("token-b");
+
+        assertThatThrownBy(() -> decoder.decode("token-b")).isInstanceOf(JwtValidationException.class);
+        assertThatThrownBy(() -> decoder.decode("token-b")).isInstanceOf(JwtValidationException.class);
+
+        verify(delegate, times(1)).decode("token-b");
+    }
+
+    @Test
+    void decode_doesNotCacheFailures() {
+        doThrow(new BadJwtException("bad signature")).when(delegate).decode("token-c");
+
+        assertThatThrownBy(() -> decoder.decode("token-c")).isInstanceOf(BadJwtException.class);
+        assertThatThrownBy(() -> decoder.decode("token-c")).isInstanceOf(BadJwtException.class);
+
+        verify(delegate, times(2)).decode("token-c");
+    }
+
+    @Test
+    void bindTo_exposesHitAndMissCounts() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        decoder.bindTo(registry);
+        doReturn(jwt("NiN", Instant.now().plusSeconds(600))).when(delegate).decode("token-d");
+
+        decoder.decode("token-d");
+        decoder.decode("token-d");
+
+        assertThat(registry.get("cache.gets").tag("cache", "jwt.decoder").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("cache.gets").tag("cache", "jwt.decoder").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    private static Jwt jwt(String issuer, Instant expiresAt) {
+        return Jwt.withTokenValue("value")
+                .header("alg", "HS256")
+                .issuer(issuer)
+                .subject("1")
+                .issuedAt(Instant.now().minusSeconds(5))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,46 @@
+package ua.nincorporation.userservice.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ua.nincorporation.userservice.model.Role;
+import ua.nincorporation.userservice.model.User;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class CustomUserDetailsTest {
+
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+
+    @Test
+    void isEnabled_onlyForAccountsWithPassword() {
+        assertThat(new CustomUserDetails(user("{bcrypt}hash")).isEnabled()).isTrue();
+        assertThat(new CustomUserDetails(user(null)).isEnabled()).isFalse();
+    }
+
+    @Test
+    void passwordLogin_forPasswordlessAccount_isRejectedWithoutHashing() {
+        UserDetailsService userDetailsService = username -> new CustomUserDetails(user(null));
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+
+        assertThatThrownBy(() -> provider.authenticate(new UsernamePasswordAuthenticationToken("Ivan", "guess")))
+                .isInstanceOf(DisabledException.class);
+        verifyNoInteractions(passwordEncoder);
+    }
+
+    private static User user(String password) {
+        return User.builder()
+                .id(1L)
+                .username("Ivan")
+                .password(password)
+                .email("ivan@gmail.com")
+                .role(Role.USER)
+                .build();
+    }
+}
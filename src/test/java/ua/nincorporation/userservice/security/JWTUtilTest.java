@@ -1,18 +1,19 @@
 package ua.nincorporation.userservice.security;
 
+import com.auth0.jwt.JWT;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class JWTUtilTest {
 
     @Test
     void generateAndParseToken() {
-        String secret = "0123456789abcdef0123456789abcdef";
-        JWTUtil jwtUtil = new JWTUtil(secret, false, "NiN", 60L, 60L);
+        JWTUtil jwtUtil = new JWTUtil(new JwtKeyRing(60L, 60L), "NiN", 60L, 60L);
 
         String token = jwtUtil.generateToken(7L, "ivan", List.of("USER","ADMIN"));
 
@@ -25,4 +26,53 @@ class JWTUtilTest {
         assertThat(jwtUtil.validateToken(token, ud)).isTrue();
     }
 
-}
\ No newline at end of file
+    @Test
+    void generateToken_signsWithEs256AndCurrentKeyId() {
+        JwtKeyRing keyRing = new JwtKeyRing(60L, 60L);
+        JWTUtil jwtUtil = new JWTUtil(keyRing, "NiN", 60L, 60L);
+
+        String token = jwtUtil.generateToken(7L, "ivan", List.of("USER"));
+
+        assertThat(JWT.decode(token).getAlgorithm()).isEqualTo("ES256");
+        assertThat(JWT.decode(token).getKeyId()).isEqualTo(keyRing.signingKeyId());
+    }
+
+    @Test
+    void verifyAndParse_returnsAllClaims_andCachesVerifiedToken() {
+        JWTUtil jwtUtil = new JWTUtil(new JwtKeyRing(60L, 60L), "NiN", 60L, 60L);
+
+        String token = jwtUtil.generateToken(7L, "ivan", List.of("USER"));
+
+        JwtClaims claims = jwtUtil.verifyAndParse(token);
+        assertThat(claims.userId()).isEqualTo(7L);
+        assertThat(claims.username()).isEqualTo("ivan");
+        assertThat(claims.roles()).containsExactly("USER");
+        assertThat(claims.expiresAt()).isAfter(claims.issuedAt());
+
+        assertThat(jwtUtil.verifyAndParse(token)).isSameAs(claims);
+    }
+
+    @Test
+    void verifyAndParse_acceptsTokenSignedBeforeRotation() {
+        JwtKeyRing keyRing = new JwtKeyRing(60L, 60L);
+        JWTUtil issuer = new JWTUtil(keyRing, "NiN", 60L, 60L);
+        String token = issuer.generateToken(7L, "ivan", List.of("USER"));
+
+        keyRing.rotate();
+
+        JWTUtil verifier = new JWTUtil(keyRing, "NiN", 60L, 60L);
+        assertThat(verifier.verifyAndParse(token).username()).isEqualTo("ivan");
+    }
+
+    @Test
+    void verifyAndParse_rejectsTokenSignedByAnotherKeyRing() {
+        JWTUtil issuer = new JWTUtil(new JwtKeyRing(60L, 60L), "NiN", 60L, 60L);
+        JWTUtil verifier = new JWTUtil(new JwtKeyRing(60L, 60L), "NiN", 60L, 60L);
+
+        String token = issuer.generateToken(7L, "ivan", List.of("USER"));
+
+        assertThatThrownBy(() -> verifier.verifyAndParse(token))
+                .isInstanceOf(JWTUtil.JwtValidationException.class);
+        assertThat(verifier.tryExtractUsername(token)).isEmpty();
+    }
+}
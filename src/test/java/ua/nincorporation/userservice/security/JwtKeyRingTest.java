@@ -0,0 +1,133 @@
+package ua.nincorporation.userservice.security;
+
+import com.nimbusds.jose.jwk.JWK;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtKeyRingTest {
+
+    @Test
+    void publicKeys_includeSigningAndPrePublishedNextKey() {
+        JwtKeyRing keyRing = new JwtKeyRing(Duration.ofHours(1), Clock.systemUTC());
+        String signing = keyRing.signingKeyId();
+
+        assertThat(keyRing.publicKeys().getKeys()).hasSize(2)
+                .allMatch(jwk -> !jwk.isPrivate())
+                .anyMatch(jwk -> jwk.getKeyID().equals(signing));
+        assertThat(keyRing.publicKeysJson()).doesNotContain("\"d\"");
+    }
+
+    @Test
+    void rotate_promotesPrePublishedKey_andKeepsOutgoingKeyForVerification() {
+        JwtKeyRing keyRing = new JwtKeyRing(Duration.ofHours(1), Clock.systemUTC());
+        String first = keyRing.signingKeyId();
+        String next = keyRing.publicKeys().getKeys().stream()
+                .map(JWK::getKeyID)
+                .filter(kid -> !kid.equals(first))
+                .findFirst()
+                .orElseThrow();
+
+        keyRing.rotate();
+
+        assertThat(keyRing.signingKeyId()).isEqualTo(next);
+        assertThat(keyRing.publicKeys().getKeys()).hasSize(3);
+        assertThat(keyRing.getPublicKeyById(first)).isNotNull();
+    }
+
+    @Test
+    void rotate_dropsRetiredKeys_onceTokensSignedWithThemHaveExpired() {
+        MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        JwtKeyRing keyRing = new JwtKeyRing(Duration.ofHours(1), clock);
+        String first = keyRing.signingKeyId();
+
+        keyRing.rotate();
+        clock.advance(Duration.ofMinutes(61));
+        keyRing.rotate();
+
+        assertThat(keyRing.getPublicKeyById(first)).isNull();
+        assertThat(keyRing.publicKeys().getKeys()).hasSize(3);
+    }
+
+    @Test
+    void replicasSharingAStore_signWithAndPublishTheSameKeys() {
+        JwtKeyStore store = new InMemoryJwtKeyStore();
+        JwtKeyRing first = new JwtKeyRing(store, Duration.ofHours(24), Duration.ofHours(1), Clock.systemUTC());
+        JwtKeyRing second = new JwtKeyRing(store, Duration.ofHours(24), Duration.ofHours(1), Clock.systemUTC());
+
+        assertThat(second.signingKeyId()).isEqualTo(first.signingKeyId());
+        assertThat(second.publicKeysJson()).isEqualTo(first.publicKeysJson());
+    }
+
+    @Test
+    void refresh_picksUpRotationMadeByAnotherReplica() {
+        JwtKeyStore store = new InMemoryJwtKeyStore();
+        JwtKeyRing first = new JwtKeyRing(store, Duration.ofHours(24), Duration.ofHours(1), Clock.systemUTC());
+        JwtKeyRing second = new JwtKeyRing(store, Duration.ofHours(24), Duration.ofHours(1), Clock.systemUTC());
+        String outgoing = second.signingKeyId();
+
+        first.rotate();
+        second.refresh();
+
+        assertThat(second.signingKeyId()).isEqualTo(first.signingKeyId()).isNotEqualTo(outgoing);
+        assertThat(second.getPublicKeyById(outgoing)).isNotNull();
+    }
+
+    @Test
+    void refresh_rotatesOnlyOnce_whenEveryReplicaFindsTheSigningKeyDue() {
+        MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        JwtKeyStore store = new InMemoryJwtKeyStore();
+        JwtKeyRing first = new JwtKeyRing(store, Duration.ofHours(24), Duration.ofHours(1), clock);
+        JwtKeyRing second = new JwtKeyRing(store, Duration.ofHours(24), Duration.ofHours(1), clock);
+
+        clock.advance(Duration.ofHours(25));
+        first.refresh();
+        second.refresh();
+
+        assertThat(second.signingKeyId()).isEqualTo(first.signingKeyId());
+        assertThat(first.publicKeys().getKeys()).hasSize(3);
+        assertThat(second.publicKeys().getKeys()).hasSize(3);
+    }
+
+    @Test
+    void privateKey_isTheCurrentSigningKey() {
+        JwtKeyRing keyRing = new JwtKeyRing(Duration.ofHours(1), Clock.systemUTC());
+        keyRing.rotate();
+
+        assertThat(keyRing.getPrivateKeyId()).isEqualTo(keyRing.signingKeyId());
+        assertThat(keyRing.getPrivateKey()).isEqualTo(keyRing.signingKey().privateKey());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ua.nincorporation.userservice.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenMinterTest {
+
+    private final JwtKeyRing keyRing = new JwtKeyRing(60L, 60L);
+    private final JwtTokenMinter minter = new JwtTokenMinter(keyRing, "NiN");
+
+    @Test
+    void mint_producesTokenVerifiableByAuth0() {
+        long now = System.currentTimeMillis() / 1000;
+
+        String token = minter.mint("jti-1", 7L, "ivan", List.of("USER", "ADMIN"), now, now + 60);
+
+        DecodedJWT decoded = JWT.require(Algorithm.ECDSA256(keyRing))
+                .withIssuer("NiN")
+                .build()
+                .verify(token);
+        assertThat(decoded.getKeyId()).isEqualTo(keyRing.signingKeyId());
+        assertThat(decoded.getId()).isEqualTo("jti-1");
+        assertThat(decoded.getSubject()).isEqualTo("7");
+        assertThat(decoded.getClaim("userId").asLong()).isEqualTo(7L);
+        assertThat(decoded.getClaim("roles").asList(String.class)).containsExactly("USER", "ADMIN");
+        assertThat(decoded.getExpiresAtAsInstant().getEpochSecond()).isEqualTo(now + 60);
+    }
+
+    @Test
+    void mint_producesTokenVerifiableByNimbus_andEscapesStrings() throws Exception {
+        long now = System.currentTimeMillis() / 1000;
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.ES256, keyRing.jwkSource()));
+
+        String token = minter.mint("jti-2", 7L, "iv\"an\\\n", List.of(), now, now + 60);
+
+        JWTClaimsSet claims = processor.process(token, null);
+        assertThat(claims.getStringClaim("username")).isEqualTo("iv\"an\\\n");
+        assertThat(claims.getClaim("roles")).isNull();
+    }
+
+    @Test
+    void mint_usesNewKeyAfterRotation() {
+        long now = System.currentTimeMillis() / 1000;
+        String before = minter.mint("a", 1L, "u", List.of(), now, now + 60);
+
+        keyRing.rotate();
+        String after = minter.mint("b", 1L, "u", List.of(), now, now + 60);
+
+        assertThat(JWT.decode(after).getKeyId()).isEqualTo(keyRing.signingKeyId())
+                .isNotEqualTo(JWT.decode(before).getKeyId());
+    }
+}
@@ -0,0 +1,125 @@
+package ua.nincorporation.userservice.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtDecoderInitializationException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OidcIdTokenDecoderFactoryTest {
+
+    @TempDir
+    Path snapshotDir;
+
+    private HttpServer server;
+    private String issuer;
+    private RSAKey signingKey;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    void startStubIssuer() throws Exception {
+        signingKey = new RSAKeyGenerator(2048).keyID("stub-key").generate();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        issuer = "http://localhost:" + server.getAddress().getPort();
+
+        String discovery = """
+                {"issuer":"%s","jwks_uri":"%s/jwks","id_token_signing_alg_values_supported":["RS256"]}
+                """.formatted(issuer, issuer);
+        String jwks = new JWKSet(signingKey.toPublicJWK()).toString();
+
+        server.createContext("/.well-known/openid-configuration", exchange -> respond(exchange, discovery));
+        server.createContext("/jwks", exchange -> respond(exchange, jwks));
+        server.start();
+    }
+
+    @AfterEach
+    void stopStubIssuer() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void lazyDecoder_doesNotTouchNetworkUntilFirstDecode() throws Exception {
+        JwtDecoder decoder = factory().lazyDecoder(JwtValidators.createDefaultWithIssuer(issuer));
+
+        assertThat(requests.get()).isZero();
+
+        assertThat(decoder.decode(idToken()).getSubject()).isEqualTo("google-user");
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void lazyDecoder_fallsBackToSnapshot_whenIssuerIsUnreachable() throws Exception {
+        factory().lazyDecoder(JwtValidators.createDefaultWithIssuer(issuer)).decode(idToken());
+        String token = idToken();
+        server.stop(0);
+        server = null;
+
+        JwtDecoder offline = factory().lazyDecoder(JwtValidators.createDefaultWithIssuer(issuer));
+
+        assertThat(offline.decode(token).getSubject()).isEqualTo("google-user");
+    }
+
+    @Test
+    void lazyDecoder_failsOnDecode_notOnCreation_withoutSnapshot() {
+        server.stop(0);
+        server = null;
+
+        JwtDecoder decoder = factory().lazyDecoder(JwtValidators.createDefaultWithIssuer(issuer));
+
+        assertThatThrownBy(() -> decoder.decode(idToken())).isInstanceOf(JwtDecoderInitializationException.class);
+    }
+
+    private OidcIdTokenDecoderFactory factory() {
+        return new OidcIdTokenDecoderFactory(issuer,
+                new SnapshotResourceRetriever(new DefaultResourceRetriever(500, 500), snapshotDir));
+    }
+
+    private String idToken() throws Exception {
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(),
+                new JWTClaimsSet.Builder()
+                        .issuer(issuer)
+                        .subject("google-user")
+                        .issueTime(new Date())
+                        .expirationTime(new Date(System.currentTimeMillis() + 60_000))
+                        .build());
+        jwt.sign(new RSASSASigner(signingKey));
+        return jwt.serialize();
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        requests.incrementAndGet();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
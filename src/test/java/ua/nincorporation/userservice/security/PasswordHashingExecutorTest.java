@@ -0,0 +1,91 @@
+package ua.nincorporation.userservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ua.nincorporation.userservice.exception.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingExecutorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void execute_rejectsImmediately_whenQueueIsFull() throws Exception {
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(2), Duration.ofSeconds(5), registry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> running = callers.submit(() -> executor.execute("encode", () -> {
+            started.countDown();
+            awaitQuietly(release);
+            return "first";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Future<String> queued = callers.submit(() -> executor.execute("encode", () -> "second"));
+        waitForQueueSize(1);
+
+        long before = System.nanoTime();
+        assertThatThrownBy(() -> executor.execute("matches", () -> true))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .satisfies(ex -> assertThat(((ServiceUnavailableException) ex).getRetryAfter()).isEqualTo(Duration.ofSeconds(2)));
+        assertThat(Duration.ofNanos(System.nanoTime() - before)).isLessThan(Duration.ofMillis(500));
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+
+        assertThat(registry.get("password.hashing.rejected").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("password.hashing.duration").tag("operation", "encode").timer().count()).isEqualTo(2);
+        assertThat(registry.get("password.hashing.wait").timer().count()).isEqualTo(2);
+
+        executor.destroy();
+    }
+
+    @Test
+    void execute_propagatesTaskException() {
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 4, Duration.ofSeconds(1), Duration.ofSeconds(5), registry);
+
+        assertThatThrownBy(() -> executor.execute("encode", () -> {
+            throw new IllegalArgumentException("bad salt");
+        }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("bad salt");
+
+        executor.destroy();
+    }
+
+    private void waitForQueueSize(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("password.hashing.queue.size").gauge().value() < expected) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Queue did not reach size " + expected);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package ua.nincorporation.userservice.security;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefreshingJwkSourceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    private final AtomicReference<String> jwks = new AtomicReference<>();
+    private final AtomicLong responseDelayMillis = new AtomicLong();
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    private HttpServer server;
+    private RSAKey first;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        scheduler.setPoolSize(2);
+        scheduler.initialize();
+
+        first = new RSAKeyGenerator(2048).keyID("first").generate();
+        jwks.set(new JWKSet(first.toPublicJWK()).toString());
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/jwks", exchange -> {
+            fetches.incrementAndGet();
+            try {
+                Thread.sleep(responseDelayMillis.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = jwks.get().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        scheduler.shutdown();
+    }
+
+    @Test
+    void get_fetchesOnce_andServesFromMemory() throws Exception {
+        RefreshingJwkSource source = source(Duration.ofMinutes(15), Duration.ofSeconds(30));
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(source.get(selector("first"), null)).hasSize(1);
+        }
+
+        assertThat(fetches.get()).isEqualTo(1);
+        assertThat(registry.get("oidc.jwks.fetch").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get("oidc.jwks.staleness").gauge().value()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    void get_servesStaleKeys_whileUnknownKidRefreshIsInFlight() throws Exception {
+        RefreshingJwkSource source = source(Duration.ofMinutes(15), Duration.ZERO);
+        source.get(selector("first"), null);
+
+        RSAKey second = new RSAKeyGenerator(2048).keyID("second").generate();
+        jwks.set(new JWKSet(List.of(first.toPublicJWK(), second.toPublicJWK())).toString());
+        responseDelayMillis.set(500);
+
+        long start = System.nanoTime();
+        assertThat(source.get(selector("second"), null)).isEmpty();
+        assertThat(source.get(selector("first"), null)).hasSize(1);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(250));
+
+        assertThat(awaitKey(source, "second")).isTrue();
+    }
+
+    @Test
+    void get_rateLimitsRefreshes_duringUnknownKidStorm() throws Exception {
+        RefreshingJwkSource source = source(Duration.ofMinutes(15), Duration.ofMinutes(1));
+        source.get(selector("first"), null);
+
+        for (int i = 0; i < 100; i++) {
+            source.get(selector("unknown-" + i), null);
+        }
+
+        Thread.sleep(200);
+        assertThat(fetches.get()).isEqualTo(1);
+        assertThat(registry.get("oidc.jwks.refresh.rate_limited").counter().count()).isEqualTo(100);
+    }
+
+    @Test
+    void backgroundRefresh_keepsServingKeys_whenUpstreamFails() throws Exception {
+        RefreshingJwkSource source = source(Duration.ofMillis(100), Duration.ofSeconds(30));
+        source.get(selector("first"), null);
+
+        jwks.set("not json");
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (registry.get("oidc.jwks.fetch").tag("outcome", "failure").timer().count() == 0
+                && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertThat(registry.get("oidc.jwks.fetch").tag("outcome", "failure").timer().count()).isPositive();
+        assertThat(source.get(selector("first"), null)).hasSize(1);
+    }
+
+    private RefreshingJwkSource source(Duration refreshInterval, Duration minRefreshInterval) throws Exception {
+        return new RefreshingJwkSource(
+                URI.create("http://localhost:" + server.getAddress().getPort() + "/jwks").toURL(),
+                new DefaultResourceRetriever(2000, 2000),
+                scheduler,
+                refreshInterval,
+                minRefreshInterval,
+                registry);
+    }
+
+    private static JWKSelector selector(String kid) {
+        return new JWKSelector(new JWKMatcher.Builder().keyID(kid).build());
+    }
+
+    private static boolean awaitKey(RefreshingJwkSource source, String kid) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() < deadline) {
+            List<JWK> keys = source.get(selector(kid), null);
+            if (!keys.isEmpty()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,83 @@
+package ua.nincorporation.userservice.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import ua.nincorporation.userservice.config.JwtConfig;
+import ua.nincorporation.userservice.model.Role;
+import ua.nincorporation.userservice.model.User;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoleAuthoritiesTest {
+
+    @Test
+    void fromClaim_returnsSameInstance_forSameRoleCombination() {
+        List<GrantedAuthority> first = RoleAuthorities.fromClaim(List.of("USER", "ADMIN"));
+        List<GrantedAuthority> second = RoleAuthorities.fromClaim(new ArrayList<>(List.of("ADMIN", "USER")));
+
+        assertThat(first).isSameAs(second);
+        assertThat(first).extracting(GrantedAuthority::getAuthority).containsExactly("USER", "ADMIN");
+        assertThat(RoleAuthorities.fromClaim("USER")).isSameAs(RoleAuthorities.of(Role.USER));
+    }
+
+    @Test
+    void fromClaim_ignoresUnknownRoles_andMissingClaim() {
+        assertThat(RoleAuthorities.fromClaim(List.of("ROOT"))).isEmpty();
+        assertThat(RoleAuthorities.fromClaim(null)).isEmpty();
+        assertThat(RoleAuthorities.of(null)).isEmpty();
+    }
+
+    @Test
+    void jwtAuthenticationConverter_readsRolesClaimWrittenByJwtUtil() {
+        JwtAuthenticationConverter converter = new JwtConfig().jwtAuthenticationConverter();
+
+        Collection<GrantedAuthority> authorities = converter.convert(jwt(List.of("ADMIN"))).getAuthorities();
+
+        assertThat(authorities).extracting(GrantedAuthority::getAuthority).containsExactly("ADMIN");
+    }
+
+    @Test
+    void customUserDetails_sharesRegistryInstance() {
+        CustomUserDetails details = new CustomUserDetails(User.builder().role(Role.ADMIN).build());
+
+        assertThat(details.getAuthorities()).isSameAs(details.getAuthorities())
+                .isSameAs(RoleAuthorities.of(Role.ADMIN));
+    }
+
+    @Test
+    void fromClaim_doesNotAllocatePerCall() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        List<String> claim = List.of("USER", "ADMIN");
+        CustomUserDetails details = new CustomUserDetails(User.builder().role(Role.USER).build());
+        for (int i = 0; i < 10_000; i++) {
+            RoleAuthorities.fromClaim(claim);
+            details.getAuthorities();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            RoleAuthorities.fromClaim(claim);
+            details.getAuthorities();
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // the old path built at least one authority and one list per call, several MB for this loop
+        assertThat(allocated).isLessThan(64 * 1024);
+    }
+
+    private static Jwt jwt(List<String> roles) {
+        return Jwt.withTokenValue("value")
+                .header("alg", "ES256")
+                .subject("1")
+                .claim("roles", roles)
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package ua.nincorporation.userservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ua.nincorporation.userservice.dto.UserCreateDto;
+import ua.nincorporation.userservice.dto.UserReadDto;
+import ua.nincorporation.userservice.dto.UserUpdateDTO;
+import ua.nincorporation.userservice.integration.IntegrationTestBase;
+import ua.nincorporation.userservice.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomUserDetailsServiceIT extends IntegrationTestBase {
+
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @MockitoSpyBean
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void loginRacingPasswordChange_doesNotCacheTheOldHash() throws Exception {
+        UserReadDto user = userService.createUser(
+                new UserCreateDto("racer", "oldPass", LocalDate.of(1990, 1, 1), "racer@example.com"));
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+        // the login reads the row, then stalls until the password change has committed
+        doAnswer(invocation -> {
+            Object row = invocation.callRealMethod();
+            read.countDown();
+            updated.await(10, TimeUnit.SECONDS);
+            return row;
+        }).doCallRealMethod().when(userRepository).findByUsername("racer");
+
+        ExecutorService login = Executors.newSingleThreadExecutor();
+        try {
+            Future<UserDetails> racing = login.submit(() -> customUserDetailsService.loadUserByUsername("racer"));
+            assertThat(read.await(10, TimeUnit.SECONDS)).isTrue();
+            userService.updateUser(user.id(), new UserUpdateDTO(null, "newPass", null, null));
+            updated.countDown();
+
+            assertThat(passwordEncoder.matches("oldPass", racing.get(10, TimeUnit.SECONDS).getPassword())).isTrue();
+        } finally {
+            login.shutdownNow();
+        }
+
+        UserDetails next = customUserDetailsService.loadUserByUsername("racer");
+        assertThat(passwordEncoder.matches("newPass", next.getPassword())).isTrue();
+        assertThat(passwordEncoder.matches("oldPass", next.getPassword())).isFalse();
+    }
+}
@@ -0,0 +1,182 @@
+package ua.nincorporation.userservice.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClient;
+import ua.nincorporation.userservice.exception.ServiceUnavailableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GoogleOAuthClientTest {
+
+    private static final String TOKEN_RESPONSE = """
+            {"access_token":"at","id_token":"id-token","token_type":"Bearer","expires_in":3599}
+            """;
+
+    private HttpServer server;
+    private String tokenUri;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile CountDownLatch release;
+
+    private final JwtDecoder idTokenDecoder = mock(JwtDecoder.class);
+    private CircuitBreakerRegistry circuitBreakers;
+
+    @BeforeEach
+    void startStubUpstream() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        tokenUri = "http://localhost:" + server.getAddress().getPort() + "/token";
+        server.createContext("/token", this::handle);
+        server.start();
+
+        circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofSeconds(30))
+                .ignoreExceptions(HttpClientErrorException.class, BadJwtException.class)
+                .build());
+    }
+
+    @AfterEach
+    void stopStubUpstream() {
+        server.stop(0);
+    }
+
+    @Test
+    void exchangeCode_returnsTokenResponse_whenUpstreamIsHealthy() {
+        GoogleOAuthClient client = client(10);
+
+        assertThat(client.exchangeCode("code", "verifier").idToken()).isEqualTo("id-token");
+        assertThat(circuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void exchangeCode_opensCircuitAndFailsFast_afterRepeatedServerErrors() {
+        GoogleOAuthClient client = client(10);
+        status = 500;
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> client.exchangeCode("code", "verifier"))
+                    .isInstanceOf(HttpServerErrorException.class);
+        }
+        assertThat(circuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> client.exchangeCode("code", "verifier"))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .extracting(e -> ((ServiceUnavailableException) e).getRetryAfter())
+                .isEqualTo(Duration.ofSeconds(30));
+        assertThat(requests.get()).isEqualTo(4);
+    }
+
+    @Test
+    void exchangeCode_clientErrorsDoNotOpenCircuit() {
+        GoogleOAuthClient client = client(10);
+        status = 400;
+
+        for (int i = 0; i < 6; i++) {
+            assertThatThrownBy(() -> client.exchangeCode("bad-code", "verifier"))
+                    .isInstanceOf(HttpClientErrorException.class);
+        }
+        assertThat(circuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void decodeIdToken_sharesCircuitWithExchange() {
+        GoogleOAuthClient client = client(10);
+        when(idTokenDecoder.decode(anyString())).thenThrow(new IllegalStateException("JWKS unreachable"));
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> client.decodeIdToken("id-token")).isInstanceOf(IllegalStateException.class);
+        }
+
+        assertThatThrownBy(() -> client.exchangeCode("code", "verifier"))
+                .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(requests.get()).isZero();
+    }
+
+    @Test
+    void exchangeCode_rejectsCallsBeyondBulkheadLimit() throws Exception {
+        GoogleOAuthClient client = client(1);
+        release = new CountDownLatch(1);
+
+        CompletableFuture<String> inFlight = CompletableFuture.supplyAsync(
+                () -> client.exchangeCode("code", "verifier").idToken());
+        waitForRequests(1);
+
+        assertThatThrownBy(() -> client.exchangeCode("code", "verifier"))
+                .isInstanceOf(ServiceUnavailableException.class);
+
+        release.countDown();
+        assertThat(inFlight.get(5, TimeUnit.SECONDS)).isEqualTo("id-token");
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(circuitBreaker().getMetrics().getNumberOfFailedCalls()).isZero();
+    }
+
+    private GoogleOAuthClient client(int maxConcurrentCalls) {
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        return new GoogleOAuthClient(RestClient.create(), idTokenDecoder, circuitBreakers, bulkheads,
+                "client-id", "client-secret", "http://localhost:3000/oauth2/callback", tokenUri);
+    }
+
+    private CircuitBreaker circuitBreaker() {
+        return circuitBreakers.circuitBreaker(GoogleOAuthClient.UPSTREAM);
+    }
+
+    private void waitForRequests(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (requests.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+        CountDownLatch latch = release;
+        if (latch != null) {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] body = (status == 200 ? TOKEN_RESPONSE : "{\"error\":\"stub\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
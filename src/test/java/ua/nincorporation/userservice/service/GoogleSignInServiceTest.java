@@ -0,0 +1,128 @@
+package ua.nincorporation.userservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.client.HttpClientErrorException;
+import ua.nincorporation.userservice.dto.GoogleTokenResponse;
+import ua.nincorporation.userservice.dto.LinkedAccountDto;
+import ua.nincorporation.userservice.model.Role;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class GoogleSignInServiceTest {
+
+    private static final int CALLERS = 16;
+    private static final LinkedAccountDto ACCOUNT = new LinkedAccountDto(1L, "Ivan", Role.USER);
+
+    private final GoogleOAuthClient googleOAuthClient = mock(GoogleOAuthClient.class);
+    private final OidcLoginService oidcLoginService = mock(OidcLoginService.class);
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+    private GoogleSignInService signInService;
+
+    @BeforeEach
+    void setUp() {
+        signInService = new GoogleSignInService(googleOAuthClient, oidcLoginService, Duration.ofSeconds(30));
+
+        when(googleOAuthClient.decodeIdToken("id-token")).thenReturn(idToken());
+        when(oidcLoginService.findOrCreateByGoogleId(any())).thenReturn(ACCOUNT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void signIn_concurrentDuplicates_shareOneUpstreamExchange() throws Exception {
+        CountDownLatch upstreamEntered = new CountDownLatch(1);
+        CountDownLatch releaseUpstream = new CountDownLatch(1);
+        when(googleOAuthClient.exchangeCode("code-1", "verifier")).thenAnswer(invocation -> {
+            upstreamEntered.countDown();
+            releaseUpstream.await(5, TimeUnit.SECONDS);
+            return tokenResponse();
+        });
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<LinkedAccountDto>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(callers.submit(() -> {
+                start.await();
+                return signInService.signIn("code-1", "verifier");
+            }));
+        }
+        start.countDown();
+        assertThat(upstreamEntered.await(5, TimeUnit.SECONDS)).isTrue();
+        releaseUpstream.countDown();
+
+        for (Future<LinkedAccountDto> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(ACCOUNT);
+        }
+        verify(googleOAuthClient, times(1)).exchangeCode("code-1", "verifier");
+        verify(oidcLoginService, times(1)).findOrCreateByGoogleId(any());
+    }
+
+    @Test
+    void signIn_lateDuplicate_isAnsweredFromRecentResult() {
+        when(googleOAuthClient.exchangeCode("code-1", "verifier")).thenReturn(tokenResponse());
+
+        signInService.signIn("code-1", "verifier");
+        assertThat(signInService.signIn("code-1", "verifier")).isEqualTo(ACCOUNT);
+
+        verify(googleOAuthClient, times(1)).exchangeCode("code-1", "verifier");
+    }
+
+    @Test
+    void signIn_differentVerifier_doesNotShareResult() {
+        when(googleOAuthClient.exchangeCode(eq("code-1"), anyString())).thenReturn(tokenResponse());
+
+        signInService.signIn("code-1", "verifier");
+        signInService.signIn("code-1", "other-verifier");
+
+        verify(googleOAuthClient).exchangeCode("code-1", "verifier");
+        verify(googleOAuthClient).exchangeCode("code-1", "other-verifier");
+    }
+
+    @Test
+    void signIn_failedExchange_isNotCached() {
+        when(googleOAuthClient.exchangeCode("code-1", "verifier"))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "invalid_grant", null, null, null))
+                .thenReturn(tokenResponse());
+
+        assertThatThrownBy(() -> signInService.signIn("code-1", "verifier"))
+                .isInstanceOf(HttpClientErrorException.class);
+        assertThat(signInService.signIn("code-1", "verifier")).isEqualTo(ACCOUNT);
+
+        verify(googleOAuthClient, times(2)).exchangeCode("code-1", "verifier");
+    }
+
+    private static GoogleTokenResponse tokenResponse() {
+        return new GoogleTokenResponse("at", "id-token", null, "Bearer", 3599L, "openid", null, null);
+    }
+
+    private static Jwt idToken() {
+        return Jwt.withTokenValue("id-token")
+                .header("alg", "RS256")
+                .subject("sub-1")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build();
+    }
+}
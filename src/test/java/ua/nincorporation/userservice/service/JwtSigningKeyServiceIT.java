@@ -0,0 +1,62 @@
+package ua.nincorporation.userservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ua.nincorporation.userservice.integration.IntegrationTestBase;
+import ua.nincorporation.userservice.security.JwtKeyRing;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JwtSigningKeyServiceIT extends IntegrationTestBase {
+
+    @Autowired
+    private JwtSigningKeyService jwtSigningKeyService;
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    @Test
+    void anotherInstance_loadsTheKeysAlreadyInTheDatabase() {
+        JwtKeyRing replica = new JwtKeyRing(jwtSigningKeyService, Duration.ofHours(24), Duration.ofHours(1),
+                Clock.systemUTC());
+
+        assertThat(replica.signingKeyId()).isEqualTo(keyRing.signingKeyId());
+        assertThat(replica.publicKeysJson()).isEqualTo(keyRing.publicKeysJson());
+    }
+
+    @Test
+    void rotationByOneInstance_reachesTheOthersOnRefresh() {
+        JwtKeyRing replica = new JwtKeyRing(jwtSigningKeyService, Duration.ofHours(24), Duration.ofHours(1),
+                Clock.systemUTC());
+        keyRing.refresh();
+        String outgoing = keyRing.signingKeyId();
+
+        replica.rotate();
+        keyRing.refresh();
+
+        assertThat(keyRing.signingKeyId()).isEqualTo(replica.signingKeyId()).isNotEqualTo(outgoing);
+        assertThat(keyRing.getPublicKeyById(outgoing)).isNotNull();
+    }
+
+    @Test
+    void concurrentRotations_fromTheSameSigningKey_rotateOnce() {
+        JwtKeyRing first = new JwtKeyRing(jwtSigningKeyService, Duration.ofHours(24), Duration.ofHours(1),
+                Clock.systemUTC());
+        JwtKeyRing second = new JwtKeyRing(jwtSigningKeyService, Duration.ofHours(24), Duration.ofHours(1),
+                Clock.systemUTC());
+        int published = first.publicKeys().getKeys().size();
+
+        first.rotate();
+        second.rotate();
+
+        assertThat(second.signingKeyId()).isEqualTo(first.signingKeyId());
+        assertThat(second.publicKeys().getKeys()).hasSize(published + 1);
+    }
+}
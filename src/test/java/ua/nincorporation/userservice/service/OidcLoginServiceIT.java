@@ -0,0 +1,143 @@
+package ua.nincorporation.userservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ua.nincorporation.userservice.dto.LinkedAccountDto;
+import ua.nincorporation.userservice.integration.IntegrationTestBase;
+import ua.nincorporation.userservice.model.User;
+import ua.nincorporation.userservice.repository.UserProviderRepository;
+import ua.nincorporation.userservice.repository.UserRepository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OidcLoginServiceIT extends IntegrationTestBase {
+
+    private static final int CONCURRENT_LOGINS = 8;
+
+    @Autowired
+    private OidcLoginService oidcLoginService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserProviderRepository providerRepository;
+
+    private final ExecutorService logins = Executors.newFixedThreadPool(CONCURRENT_LOGINS);
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        logins.shutdownNow();
+    }
+
+    @Test
+    void concurrentFirstLogins_createAndLinkOneUser() throws Exception {
+        List<LinkedAccountDto> accounts = loginConcurrently("sub-race", "race@example.com");
+
+        assertThat(accounts).extracting(LinkedAccountDto::userId).containsOnly(accounts.get(0).userId());
+        assertThat(userRepository.count()).isEqualTo(1);
+        assertThat(providerRepository.count()).isEqualTo(1);
+        assertThat(providerRepository.findLinkedAccount("google", "sub-race")).contains(accounts.get(0));
+        assertThat(userRepository.findById(accounts.get(0).userId())).get()
+                .extracting(User::getPassword).isNull();
+    }
+
+    @Test
+    void concurrentFirstLogins_linkExistingUserByEmail() throws Exception {
+        User existing = userRepository.saveAndFlush(User.builder()
+                .username("existing")
+                .password("pwd")
+                .email("existing@example.com")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .build());
+
+        List<LinkedAccountDto> accounts = loginConcurrently("sub-existing", "existing@example.com");
+
+        assertThat(accounts).extracting(LinkedAccountDto::userId).containsOnly(existing.getId());
+        assertThat(userRepository.count()).isEqualTo(1);
+        assertThat(providerRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void firstLogin_withDisplayNameTakenByAnotherUser_getsSuffixedUsername() {
+        userRepository.saveAndFlush(User.builder()
+                .username("John Smith")
+                .password("pwd")
+                .email("john@example.com")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .build());
+
+        LinkedAccountDto account = oidcLoginService.findOrCreateByGoogleId(
+                idToken("sub-john", "john.smith@example.com", "John Smith"));
+
+        assertThat(account.username()).isEqualTo("John Smith-sub-john");
+        assertThat(userRepository.count()).isEqualTo(2);
+        assertThat(providerRepository.findLinkedAccount("google", "sub-john")).contains(account);
+    }
+
+    @Test
+    void firstLogin_withoutDisplayName_usesEmailLocalPart() {
+        LinkedAccountDto account = oidcLoginService.findOrCreateByGoogleId(
+                idToken("sub-nameless", "nameless@example.com", null));
+
+        assertThat(account.username()).isEqualTo("nameless");
+    }
+
+    private List<LinkedAccountDto> loginConcurrently(String sub, String email) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<LinkedAccountDto>> results = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_LOGINS; i++) {
+            results.add(logins.submit(() -> {
+                start.await();
+                return oidcLoginService.findOrCreateByGoogleId(idToken(sub, email));
+            }));
+        }
+        start.countDown();
+
+        List<LinkedAccountDto> accounts = new ArrayList<>();
+        for (Future<LinkedAccountDto> result : results) {
+            accounts.add(result.get(10, TimeUnit.SECONDS));
+        }
+        return accounts;
+    }
+
+    private static Jwt idToken(String sub, String email) {
+        return idToken(sub, email, sub);
+    }
+
+    private static Jwt idToken(String sub, String email, String name) {
+        Jwt.Builder token = Jwt.withTokenValue("id-token")
+                .header("alg", "RS256")
+                .subject(sub)
+                .claim("email", email)
+                .claim("email_verified", true);
+        if (name != null) {
+            token.claim("name", name);
+        }
+        return token
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build();
+    }
+}
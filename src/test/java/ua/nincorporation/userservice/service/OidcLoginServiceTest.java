@@ -0,0 +1,104 @@
+package ua.nincorporation.userservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.jwt.Jwt;
+import ua.nincorporation.userservice.dto.LinkedAccountDto;
+import ua.nincorporation.userservice.model.Role;
+import ua.nincorporation.userservice.repository.UserProviderRepository;
+import ua.nincorporation.userservice.repository.UserProviderRepository.LinkedAccountRow;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OidcLoginServiceTest {
+
+    @Mock
+    private UserProviderRepository providerRepository;
+
+    private LinkedAccountCache linkedAccountCache;
+    private OidcLoginService oidcLoginService;
+
+    @BeforeEach
+    void setUp() {
+        linkedAccountCache = new LinkedAccountCache(100, Duration.ofMinutes(5));
+        oidcLoginService = new OidcLoginService(providerRepository, linkedAccountCache);
+    }
+
+    @Test
+    void findOrCreateByGoogleId_resolvesLinkedAccountInOneQuery_thenServesRepeatsFromCache() {
+        LinkedAccountDto account = new LinkedAccountDto(1L, "Ivan", Role.USER);
+        doReturn(Optional.of(account)).when(providerRepository).findLinkedAccount("google", "sub-1");
+
+        assertThat(oidcLoginService.findOrCreateByGoogleId(idToken("sub-1"))).isEqualTo(account);
+        assertThat(oidcLoginService.findOrCreateByGoogleId(idToken("sub-1"))).isEqualTo(account);
+
+        verify(providerRepository, times(1)).findLinkedAccount("google", "sub-1");
+        verifyNoMoreInteractions(providerRepository);
+    }
+
+    @Test
+    void findOrCreateByGoogleId_upsertsAndLinks_onFirstLogin() {
+        doReturn(Optional.empty()).when(providerRepository).findLinkedAccount("google", "sub-1");
+        LinkedAccountRow row = mock(LinkedAccountRow.class);
+        doReturn(7L).when(row).getUserId();
+        doReturn("Ivan").when(row).getUsername();
+        doReturn("USER").when(row).getRole();
+        doReturn(row).when(providerRepository).upsertLinkedAccount(
+                "google", "sub-1", "ivan@gmail.com", "Ivan", LocalDate.of(1990, 1, 1));
+
+        LinkedAccountDto account = oidcLoginService.findOrCreateByGoogleId(idToken("sub-1"));
+
+        assertThat(account).isEqualTo(new LinkedAccountDto(7L, "Ivan", Role.USER));
+        assertThat(linkedAccountCache.get("google", "sub-1")).contains(account);
+    }
+
+    @Test
+    void findOrCreateByGoogleId_reloads_afterUserChanged() {
+        doReturn(Optional.of(new LinkedAccountDto(1L, "Ivan", Role.USER)),
+                Optional.of(new LinkedAccountDto(1L, "Ivan", Role.ADMIN)))
+                .when(providerRepository).findLinkedAccount("google", "sub-1");
+
+        oidcLoginService.findOrCreateByGoogleId(idToken("sub-1"));
+        linkedAccountCache.onUserChanged(new UserChangedEvent(1L, "Ivan", "ivan@gmail.com"));
+
+        assertThat(oidcLoginService.findOrCreateByGoogleId(idToken("sub-1")).role()).isEqualTo(Role.ADMIN);
+        verify(providerRepository, times(2)).findLinkedAccount("google", "sub-1");
+        verify(providerRepository, never()).upsertLinkedAccount(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void findOrCreateByGoogleId_doesNotCacheAnAccountReadBeforeAConcurrentChange() {
+        // the user is deleted after the login read the row but before the login caches it
+        doAnswer(invocation -> {
+            linkedAccountCache.onUserChanged(new UserChangedEvent(1L, "Ivan", "ivan@gmail.com"));
+            return Optional.of(new LinkedAccountDto(1L, "Ivan", Role.USER));
+        }).when(providerRepository).findLinkedAccount("google", "sub-1");
+
+        assertThat(oidcLoginService.findOrCreateByGoogleId(idToken("sub-1")).userId()).isEqualTo(1L);
+
+        assertThat(linkedAccountCache.get("google", "sub-1")).isEmpty();
+    }
+
+    private static Jwt idToken(String sub) {
+        return Jwt.withTokenValue("id-token")
+                .header("alg", "RS256")
+                .subject(sub)
+                .claim("email", "ivan@gmail.com")
+                .claim("email_verified", true)
+                .claim("name", "Ivan")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package ua.nincorporation.userservice.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ua.nincorporation.userservice.dto.UserCreateDto;
+import ua.nincorporation.userservice.dto.UserReadDto;
+import ua.nincorporation.userservice.dto.UserUpdateDTO;
+import ua.nincorporation.userservice.integration.IntegrationTestBase;
+import ua.nincorporation.userservice.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PasswordHashingConnectionIT extends IntegrationTestBase {
+
+    @Autowired
+    private AuthenticationService authenticationService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private HikariDataSource dataSource;
+
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+
+    private final List<Integer> activeConnectionsWhileHashing = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        activeConnectionsWhileHashing.clear();
+        doAnswer(invocation -> {
+            activeConnectionsWhileHashing.add(dataSource.getHikariPoolMXBean().getActiveConnections());
+            return "encoded-" + invocation.getArgument(0);
+        }).when(passwordEncoder).encode(any());
+    }
+
+    @Test
+    void register_hashesWithoutHoldingConnection() {
+        authenticationService.register(new UserCreateDto("hold1", "pass1234", LocalDate.of(1990, 1, 1), "hold1@example.com"));
+
+        assertThat(activeConnectionsWhileHashing).containsExactly(0);
+        assertThat(userRepository.findByUsername("hold1")).get()
+                .extracting(u -> u.getPassword()).isEqualTo("encoded-pass1234");
+    }
+
+    @Test
+    void createUser_hashesWithoutHoldingConnection() {
+        userService.createUser(new UserCreateDto("hold2", "pass1234", LocalDate.of(1990, 1, 1), "hold2@example.com"));
+
+        assertThat(activeConnectionsWhileHashing).containsExactly(0);
+    }
+
+    @Test
+    void updateUser_hashesWithoutHoldingConnection() {
+        UserReadDto created = userService.createUser(new UserCreateDto("hold3", "pass1234", LocalDate.of(1990, 1, 1), "hold3@example.com"));
+        activeConnectionsWhileHashing.clear();
+
+        userService.updateUser(created.id(), new UserUpdateDTO(null, "newPass", null, null));
+
+        assertThat(activeConnectionsWhileHashing).containsExactly(0);
+        assertThat(userRepository.findById(created.id())).get()
+                .extracting(u -> u.getPassword()).isEqualTo("encoded-newPass");
+    }
+}
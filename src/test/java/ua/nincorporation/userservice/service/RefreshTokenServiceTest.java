@@ -0,0 +1,115 @@
+package ua.nincorporation.userservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ua.nincorporation.userservice.exception.InvalidTokenException;
+import ua.nincorporation.userservice.model.RefreshToken;
+import ua.nincorporation.userservice.model.User;
+import ua.nincorporation.userservice.repository.RefreshTokenRepository;
+import ua.nincorporation.userservice.repository.UserRepository;
+import ua.nincorporation.userservice.security.TokenDigest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+    @Mock
+    private UserRepository userRepository;
+    @InjectMocks
+    private RefreshTokenService refreshTokenService;
+
+    private final User user = User.builder().id(1L).username("ivan").build();
+    private final UUID familyId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(refreshTokenService, "expiration", Duration.ofDays(14));
+        ReflectionTestUtils.setField(refreshTokenService, "purgeBatchSize", 2);
+    }
+
+    @Test
+    void rotate_marksTokenUsed_andIssuesSuccessorInSameFamily() {
+        RefreshToken current = token(null, LocalDateTime.now().plusDays(1));
+        doReturn(Optional.of(current)).when(refreshTokenRepository).findWithUserByTokenHash(TokenDigest.sha256("old"));
+        doReturn(1).when(refreshTokenRepository).markUsed(eq(10L), any());
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate("old");
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertThat(rotation.user()).isSameAs(user);
+        assertThat(rotation.refreshToken()).isNotBlank().isNotEqualTo("old");
+        assertThat(saved.getValue().getFamilyId()).isEqualTo(familyId);
+        assertThat(saved.getValue().getTokenHash()).isEqualTo(TokenDigest.sha256(rotation.refreshToken()));
+        verify(refreshTokenRepository, never()).deleteByFamilyId(any());
+    }
+
+    @Test
+    void rotate_revokesFamily_whenTokenWasAlreadyUsed() {
+        RefreshToken current = token(LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusDays(1));
+        doReturn(Optional.of(current)).when(refreshTokenRepository).findWithUserByTokenHash(TokenDigest.sha256("old"));
+
+        assertThatThrownBy(() -> refreshTokenService.rotate("old")).isInstanceOf(InvalidTokenException.class);
+
+        verify(refreshTokenRepository).deleteByFamilyId(familyId);
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void rotate_revokesFamily_whenConcurrentRotationWonTheRace() {
+        RefreshToken current = token(null, LocalDateTime.now().plusDays(1));
+        doReturn(Optional.of(current)).when(refreshTokenRepository).findWithUserByTokenHash(TokenDigest.sha256("old"));
+        doReturn(0).when(refreshTokenRepository).markUsed(eq(10L), any());
+
+        assertThatThrownBy(() -> refreshTokenService.rotate("old")).isInstanceOf(InvalidTokenException.class);
+
+        verify(refreshTokenRepository).deleteByFamilyId(familyId);
+    }
+
+    @Test
+    void rotate_rejectsExpiredToken() {
+        RefreshToken current = token(null, LocalDateTime.now().minusSeconds(1));
+        doReturn(Optional.of(current)).when(refreshTokenRepository).findWithUserByTokenHash(TokenDigest.sha256("old"));
+
+        assertThatThrownBy(() -> refreshTokenService.rotate("old")).isInstanceOf(InvalidTokenException.class);
+
+        verify(refreshTokenRepository, never()).markUsed(any(), any());
+    }
+
+    @Test
+    void purgeExpired_deletesInBatchesUntilShortBatch() {
+        doReturn(2, 2, 1).when(refreshTokenRepository).deleteExpiredBatch(any(), eq(2));
+
+        refreshTokenService.purgeExpired();
+
+        verify(refreshTokenRepository, times(3)).deleteExpiredBatch(any(), eq(2));
+    }
+
+    private RefreshToken token(LocalDateTime usedAt, LocalDateTime expiresAt) {
+        return RefreshToken.builder()
+                .id(10L)
+                .user(user)
+                .familyId(familyId)
+                .usedAt(usedAt)
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
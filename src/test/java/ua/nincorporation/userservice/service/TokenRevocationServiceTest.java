@@ -0,0 +1,84 @@
+package ua.nincorporation.userservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ua.nincorporation.userservice.model.RevokedToken;
+import ua.nincorporation.userservice.repository.RevokedTokenRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocationService = new TokenRevocationService(revokedTokenRepository, 1_000, Duration.ofMinutes(1));
+        doReturn(List.of()).when(revokedTokenRepository).findByExpiresAtAfter(any());
+        tokenRevocationService.load();
+    }
+
+    @Test
+    void isRevoked_checksMemoryOnly() {
+        String jti = UUID.randomUUID().toString();
+
+        tokenRevocationService.revoke(jti, Instant.now().plusSeconds(600));
+
+        assertThat(tokenRevocationService.isRevoked(jti)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(UUID.randomUUID().toString())).isFalse();
+        verify(revokedTokenRepository).findByExpiresAtAfter(any());
+        verify(revokedTokenRepository).save(any());
+        verifyNoMoreInteractions(revokedTokenRepository);
+    }
+
+    @Test
+    void pollRevocations_picksUpRevocationsFromOtherInstances() {
+        UUID jti = UUID.randomUUID();
+        doReturn(List.of(revoked(jti, LocalDateTime.now().plusMinutes(10))))
+                .when(revokedTokenRepository).findByRevokedAtAfter(any());
+
+        tokenRevocationService.pollRevocations();
+
+        assertThat(tokenRevocationService.isRevoked(jti.toString())).isTrue();
+    }
+
+    @Test
+    void dropExpired_forgetsTokensThatHaveExpired() {
+        UUID expired = UUID.randomUUID();
+        UUID live = UUID.randomUUID();
+        doReturn(List.of(
+                revoked(expired, LocalDateTime.now().minusSeconds(1)),
+                revoked(live, LocalDateTime.now().plusMinutes(10))))
+                .when(revokedTokenRepository).findByRevokedAtAfter(any());
+        tokenRevocationService.pollRevocations();
+
+        tokenRevocationService.dropExpired();
+
+        assertThat(tokenRevocationService.isRevoked(expired.toString())).isFalse();
+        assertThat(tokenRevocationService.isRevoked(live.toString())).isTrue();
+        verify(revokedTokenRepository).deleteExpired(any());
+    }
+
+    private static RevokedToken revoked(UUID jti, LocalDateTime expiresAt) {
+        return RevokedToken.builder()
+                .jti(jti)
+                .expiresAt(expiresAt)
+                .revokedAt(LocalDateTime.now())
+                .build();
+    }
+}
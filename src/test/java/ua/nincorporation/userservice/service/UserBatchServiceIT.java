@@ -0,0 +1,109 @@
+package ua.nincorporation.userservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ua.nincorporation.userservice.dto.BatchUserResultDto;
+import ua.nincorporation.userservice.dto.BatchUserResultDto.Status;
+import ua.nincorporation.userservice.dto.UserCreateDto;
+import ua.nincorporation.userservice.integration.IntegrationTestBase;
+import ua.nincorporation.userservice.model.User;
+import ua.nincorporation.userservice.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserBatchServiceIT extends IntegrationTestBase {
+
+    @Autowired
+    private UserBatchService userBatchService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        doAnswer(invocation -> "encoded-" + invocation.getArgument(0)).when(passwordEncoder).encode(any());
+    }
+
+    @Test
+    void createUsers_insertsValidRows_andReportsFailuresPerItem() {
+        userRepository.saveAndFlush(User.builder()
+                .username("taken")
+                .password("pwd")
+                .email("taken@example.com")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .build());
+
+        List<BatchUserResultDto> results = userBatchService.createUsers(List.of(
+                dto("batch1", "batch1@example.com"),
+                dto("taken", "other@example.com"),
+                dto("batch2", "taken@example.com"),
+                new UserCreateDto("b", "1234", LocalDate.of(1990, 1, 1), "short@example.com"),
+                new UserCreateDto("nodob", "1234", null, "nodob@example.com"),
+                dto("batch1", "again@example.com"),
+                dto("batch3", "batch3@example.com")));
+
+        assertThat(results).extracting(BatchUserResultDto::status).containsExactly(
+                Status.CREATED, Status.DUPLICATE, Status.DUPLICATE, Status.INVALID, Status.INVALID,
+                Status.DUPLICATE, Status.CREATED);
+        assertThat(results).extracting(BatchUserResultDto::index).containsExactly(0, 1, 2, 3, 4, 5, 6);
+        assertThat(results.get(0).user().id()).isNotNull();
+        assertThat(results.get(0).user().email()).isEqualTo("batch1@example.com");
+
+        assertThat(userRepository.count()).isEqualTo(3);
+        assertThat(userRepository.findByUsername("batch3")).get()
+                .extracting(User::getPassword).isEqualTo("encoded-1234");
+        // duplicates are found before hashing, only the two created users paid for a hash
+        verify(passwordEncoder, times(2)).encode(any());
+    }
+
+    @Test
+    void createUsers_judgesDateOfBirthByTheDatabaseDate() {
+        LocalDate today = jdbcTemplate.queryForObject("SELECT CURRENT_DATE", LocalDate.class);
+
+        List<BatchUserResultDto> results = userBatchService.createUsers(List.of(
+                new UserCreateDto("born-today", "1234", today, "today@example.com"),
+                new UserCreateDto("unborn", "1234", today.plusDays(1), "unborn@example.com")));
+
+        assertThat(results).extracting(BatchUserResultDto::status).containsExactly(Status.CREATED, Status.INVALID);
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void createUsers_handlesBatchLargerThanHashingPool() {
+        List<UserCreateDto> batch = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            batch.add(dto("bulk" + i, "bulk" + i + "@example.com"));
+        }
+
+        List<BatchUserResultDto> results = userBatchService.createUsers(batch);
+
+        assertThat(results).extracting(BatchUserResultDto::status).containsOnly(Status.CREATED);
+        assertThat(userRepository.count()).isEqualTo(200);
+    }
+
+    private static UserCreateDto dto(String username, String email) {
+        return new UserCreateDto(username, "1234", LocalDate.of(1990, 1, 1), email);
+    }
+}
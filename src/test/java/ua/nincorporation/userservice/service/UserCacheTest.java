@@ -0,0 +1,177 @@
+package ua.nincorporation.userservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ua.nincorporation.userservice.dto.UserReadDto;
+import ua.nincorporation.userservice.model.Role;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserCacheTest {
+
+    private static final UserReadDto IVAN = new UserReadDto(1L, "ivan", "ivan@gmail.com", LocalDate.of(1990, 1, 1));
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userCache = new UserCache(100, Duration.ofMinutes(5), Duration.ofSeconds(30), meterRegistry);
+    }
+
+    @Test
+    void getCredentials_loadsOnce_untilUserChanges() {
+        AtomicInteger loads = new AtomicInteger();
+        UserCache.Credentials credentials = new UserCache.Credentials(1L, "ivan", "{bcrypt}hash", Role.USER);
+
+        userCache.getCredentials("ivan", username -> {
+            loads.incrementAndGet();
+            return Optional.of(credentials);
+        });
+        assertThat(userCache.getCredentials("ivan", username -> Optional.empty())).contains(credentials);
+
+        userCache.onUserChanged(new UserChangedEvent(1L, "ivan", "ivan@gmail.com"));
+
+        assertThat(userCache.getCredentials("ivan", username -> Optional.empty())).isEmpty();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void getCredentials_doesNotCacheARowReadBeforeAConcurrentChange() throws Exception {
+        UserCache.Credentials stale = new UserCache.Credentials(1L, "ivan", "{bcrypt}old", Role.USER);
+        UserCache.Credentials fresh = new UserCache.Credentials(1L, "ivan", "{bcrypt}new", Role.USER);
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch changed = new CountDownLatch(1);
+
+        ExecutorService login = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<UserCache.Credentials>> racing = login.submit(() -> userCache.getCredentials("ivan",
+                    username -> {
+                        read.countDown();
+                        try {
+                            changed.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return Optional.of(stale);
+                    }));
+            assertThat(read.await(5, TimeUnit.SECONDS)).isTrue();
+            userCache.onUserChanged(new UserChangedEvent(1L, "ivan", null));
+            changed.countDown();
+
+            assertThat(racing.get(5, TimeUnit.SECONDS)).contains(stale);
+        } finally {
+            login.shutdownNow();
+        }
+
+        assertThat(userCache.getCredentials("ivan", username -> Optional.of(fresh))).contains(fresh);
+    }
+
+    @Test
+    void getByUsername_doesNotCacheARowReadBeforeAConcurrentUpdate() throws Exception {
+        UserReadDto renamed = new UserReadDto(1L, "ivan2", "ivan@gmail.com", LocalDate.of(1990, 1, 1));
+
+        Optional<UserReadDto> answered = raceWith(new UserChangedEvent(1L, "ivan", "ivan@gmail.com"),
+                readRow -> userCache.getByUsername("ivan", username -> {
+                    readRow.run();
+                    return Optional.of(IVAN);
+                }));
+
+        assertThat(answered).contains(IVAN);
+        assertThat(userCache.getById(1L, id -> Optional.of(renamed))).contains(renamed);
+        assertThat(userCache.getByEmail("ivan@gmail.com", email -> Optional.empty())).contains(renamed);
+        assertThat(userCache.getByUsername("ivan", username -> Optional.empty())).isEmpty();
+    }
+
+    @Test
+    void getById_doesNotCacheARowReadBeforeAConcurrentDelete() throws Exception {
+        Optional<UserReadDto> answered = raceWith(new UserChangedEvent(1L, "ivan", "ivan@gmail.com"),
+                readRow -> userCache.getById(1L, id -> {
+                    readRow.run();
+                    return Optional.of(IVAN);
+                }));
+
+        assertThat(answered).contains(IVAN);
+        assertThat(userCache.getById(1L, id -> Optional.empty())).isEmpty();
+        assertThat(userCache.getByUsername("ivan", username -> Optional.empty())).isEmpty();
+        assertThat(userCache.getByEmail("ivan@gmail.com", email -> Optional.empty())).isEmpty();
+    }
+
+    @Test
+    void getAll_doesNotCacheRowsReadBeforeAConcurrentDelete() throws Exception {
+        Map<Long, UserReadDto> answered = raceWith(new UserChangedEvent(1L, "ivan", "ivan@gmail.com"),
+                readRow -> userCache.getAll(List.of(1L), ids -> {
+                    readRow.run();
+                    return List.of(IVAN);
+                }));
+
+        assertThat(answered).containsEntry(1L, IVAN);
+        assertThat(userCache.getAll(List.of(1L), ids -> List.of())).isEmpty();
+    }
+
+    @Test
+    void evict_dropsIndexesOfTheCachedRow_evenWhenEventKeysDiffer() {
+        userCache.getById(1L, id -> Optional.of(IVAN));
+
+        userCache.evict(1L, "someone-else", null);
+
+        assertThat(userCache.getByUsername("ivan", username -> Optional.empty())).isEmpty();
+        assertThat(userCache.getByEmail("ivan@gmail.com", email -> Optional.empty())).isEmpty();
+        assertThat(userCache.getAll(List.of(1L), ids -> List.of())).isEmpty();
+    }
+
+    @Test
+    void metrics_exposeHitRatioEvictionsAndLoadLatency() {
+        userCache.getById(1L, id -> Optional.of(IVAN));
+        userCache.getById(1L, id -> Optional.of(IVAN));
+
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "users.by-id").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.hit.ratio").tag("cache", "users.by-id").gauge().value())
+                .isEqualTo(0.5);
+        assertThat(meterRegistry.get("cache.load.duration").tag("cache", "users.by-id")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", "users.by-id")
+                .functionCounter().count()).isZero();
+    }
+
+    // runs the lookup on another thread and publishes the change while its loader holds the row it read
+    private <T> T raceWith(UserChangedEvent change, Function<Runnable, T> lookup) throws Exception {
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch changed = new CountDownLatch(1);
+        Runnable readRow = () -> {
+            read.countDown();
+            try {
+                changed.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            Future<T> racing = reader.submit(() -> lookup.apply(readRow));
+            assertThat(read.await(5, TimeUnit.SECONDS)).isTrue();
+            userCache.onUserChanged(change);
+            changed.countDown();
+            return racing.get(5, TimeUnit.SECONDS);
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+}
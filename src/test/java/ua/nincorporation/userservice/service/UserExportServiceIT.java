@@ -0,0 +1,100 @@
+package ua.nincorporation.userservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ua.nincorporation.userservice.integration.IntegrationTestBase;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.export.fetch-size=500")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserExportServiceIT extends IntegrationTestBase {
+
+    private static final int ROWS = 500_000;
+    private static final long SAMPLE_EVERY_BYTES = 4L * 1024 * 1024;
+    private static final long MAX_HEAP_GROWTH = 32L * 1024 * 1024;
+
+    @Autowired
+    private UserExportService userExportService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM user_service.users");
+        jdbcTemplate.update("""
+                INSERT INTO user_service.users (username, email, date_of_birth)
+                SELECT 'export' || g, 'export' || g || '@example.com', DATE '1990-01-01'
+                FROM generate_series(1, ?) g""", ROWS);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM user_service.users");
+    }
+
+    @Test
+    void exportNdjson_streamsEveryRow_withFlatHeap() {
+        HeapSamplingStream out = new HeapSamplingStream();
+
+        long exported = userExportService.exportNdjson(out);
+
+        assertThat(exported).isEqualTo(ROWS);
+        assertThat(out.lines).isEqualTo(ROWS);
+        // the output is tens of megabytes; a buffering export would grow the heap by more than that
+        assertThat(out.bytes).isGreaterThan(MAX_HEAP_GROWTH);
+        assertThat(out.samples).hasSizeGreaterThan(3);
+        assertThat(out.samples.stream().mapToLong(Long::longValue).max().orElseThrow() - out.samples.get(0))
+                .isLessThan(MAX_HEAP_GROWTH);
+    }
+
+    // discards the export, counting lines and sampling retained heap as it goes
+    private static final class HeapSamplingStream extends OutputStream {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final List<Long> samples = new ArrayList<>();
+        private long bytes;
+        private long lines;
+        private long nextSampleAt;
+
+        @Override
+        public void write(int b) {
+            count(b);
+            maybeSample();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                count(b[i]);
+            }
+            maybeSample();
+        }
+
+        private void count(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        private void maybeSample() {
+            if (bytes >= nextSampleAt) {
+                System.gc();
+                samples.add(memory.getHeapMemoryUsage().getUsed());
+                nextSampleAt = bytes + SAMPLE_EVERY_BYTES;
+            }
+        }
+    }
+}
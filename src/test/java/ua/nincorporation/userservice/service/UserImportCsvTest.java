@@ -0,0 +1,72 @@
+package ua.nincorporation.userservice.service;
+
+import org.junit.jupiter.api.Test;
+import ua.nincorporation.userservice.exception.BadRequestException;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserImportCsvTest {
+
+    private static final String HASH = "$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy";
+
+    @Test
+    void parse_normalisesFields_byHeaderPosition() {
+        UserImportCsv csv = UserImportCsv.fromHeader("\uFEFFEmail, Date_Of_Birth ,username,password");
+
+        UserImportCsv.Row row = csv.parse(" Alice@Example.COM ,1990-05-01,\"  alice \"," + HASH);
+
+        assertThat(row.username()).isEqualTo("alice");
+        assertThat(row.email()).isEqualTo("alice@example.com");
+        assertThat(row.dateOfBirth()).isEqualTo(LocalDate.of(1990, 5, 1));
+        assertThat(row.password()).isEqualTo("{bcrypt}" + HASH);
+    }
+
+    @Test
+    void parse_leavesPasswordNull_whenEmptyOrAbsent() {
+        assertThat(UserImportCsv.fromHeader("username,email,date_of_birth,password")
+                .parse("bob,bob@example.com,1990-01-01,").password()).isNull();
+        assertThat(UserImportCsv.fromHeader("username,email,date_of_birth")
+                .parse("bob,bob@example.com,1990-01-01").password()).isNull();
+    }
+
+    @Test
+    void parse_rejectsInvalidRows() {
+        UserImportCsv csv = UserImportCsv.fromHeader("username,email,date_of_birth,password");
+
+        assertThatThrownBy(() -> csv.parse("b,bob@example.com,1990-01-01,")).hasMessageContaining("username");
+        assertThatThrownBy(() -> csv.parse("bob,not-an-email,1990-01-01,")).hasMessageContaining("email");
+        assertThatThrownBy(() -> csv.parse("bob,bob@example.com,1899-12-31,")).hasMessageContaining("date_of_birth");
+        assertThatThrownBy(() -> csv.parse("bob,bob@example.com,01/02/1990,")).hasMessageContaining("date_of_birth");
+        assertThatThrownBy(() -> csv.parse("bob,bob@example.com,1990-01-01,secret")).hasMessageContaining("password");
+        assertThatThrownBy(() -> csv.parse("bob,bob@example.com,1990-01-01")).hasMessageContaining("fields");
+        assertThatThrownBy(() -> csv.parse("\"bob,bob@example.com,1990-01-01,")).hasMessageContaining("quoting");
+    }
+
+    @Test
+    void fromHeader_requiresUserColumns() {
+        assertThatThrownBy(() -> UserImportCsv.fromHeader("username,date_of_birth"))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("email");
+        assertThatThrownBy(() -> UserImportCsv.fromHeader(null)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void split_handlesQuotedCommasAndEscapedQuotes() {
+        assertThat(UserImportCsv.split("\"a,b\",\"say \"\"hi\"\"\",,c"))
+                .containsExactly("a,b", "say \"hi\"", "", "c");
+        assertThat(UserImportCsv.split("\"a\"b,c")).isNull();
+    }
+
+    @Test
+    void appendCopyLine_quotesValues_andWritesNullPasswordUnquoted() {
+        StringBuilder out = new StringBuilder();
+
+        new UserImportCsv.Row("o\"neil", null, "o@example.com", LocalDate.of(1990, 1, 1))
+                .appendCopyLine(out, "id", 7);
+
+        assertThat(out).hasToString("id,7,\"o\"\"neil\",,\"o@example.com\",1990-01-01\n");
+    }
+}
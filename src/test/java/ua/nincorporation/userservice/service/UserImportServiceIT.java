@@ -0,0 +1,223 @@
+package ua.nincorporation.userservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ua.nincorporation.userservice.dto.UserImportDto;
+import ua.nincorporation.userservice.exception.BadRequestException;
+import ua.nincorporation.userservice.integration.IntegrationTestBase;
+import ua.nincorporation.userservice.model.UserImport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "app.import.chunk-size=100000")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserImportServiceIT extends IntegrationTestBase {
+
+    private static final int ROWS = 2_000_000;
+    private static final String HASH = "$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy";
+
+    @Autowired
+    private UserImportService userImportService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM user_service.users");
+        jdbcTemplate.update("DELETE FROM user_service.user_import");
+    }
+
+    @Test
+    void startImport_loadsMillionsOfRows_skippingDuplicatesAndInvalidRows() {
+        UserImportDto job = userImportService.startImport(new SyntheticCsv(ROWS, Long.MAX_VALUE));
+
+        Expected expected = Expected.of(ROWS);
+        assertThat(job.status()).isEqualTo(UserImport.Status.COMPLETED);
+        assertThat(job.linesCommitted()).isEqualTo(ROWS);
+        assertThat(job.rowsImported()).isEqualTo(expected.imported());
+        assertThat(job.rowsDuplicate()).isEqualTo(expected.duplicate());
+        assertThat(job.rowsRejected()).isEqualTo(expected.rejected());
+
+        assertThat(countUsers()).isEqualTo(expected.imported());
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM user_service.user_import_staging", Long.class)).isZero();
+        // trimmed, unquoted and lower-cased; the first occurrence of a duplicated username won
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT email FROM user_service.users WHERE username = 'import999'", String.class))
+                .isEqualTo("import999@example.com");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT email FROM user_service.users WHERE username = 'import7'", String.class))
+                .isEqualTo("import7@example.com");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT password FROM user_service.users WHERE username = 'import101'", String.class))
+                .isEqualTo("{bcrypt}" + HASH);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT password FROM user_service.users WHERE username = 'import102'", String.class))
+                .isNull();
+    }
+
+    @Test
+    void resumeImport_continuesAfterLastCommittedChunk() {
+        int rows = 250_000;
+        UserImportDto failed = userImportService.startImport(new SyntheticCsv(rows, 230_000));
+
+        assertThat(failed.status()).isEqualTo(UserImport.Status.FAILED);
+        assertThat(failed.error()).contains("230000");
+        assertThat(failed.linesCommitted()).isEqualTo(200_000);
+        assertThat(countUsers()).isEqualTo(failed.rowsImported());
+        assertThat(userImportService.findImport(failed.id())).contains(failed);
+
+        UserImportDto resumed = userImportService.resumeImport(failed.id(), new SyntheticCsv(rows, Long.MAX_VALUE))
+                .orElseThrow();
+
+        Expected expected = Expected.of(rows);
+        assertThat(resumed.status()).isEqualTo(UserImport.Status.COMPLETED);
+        assertThat(resumed.linesCommitted()).isEqualTo(rows);
+        assertThat(resumed.rowsImported()).isEqualTo(expected.imported());
+        assertThat(resumed.rowsDuplicate()).isEqualTo(expected.duplicate());
+        assertThat(resumed.rowsRejected()).isEqualTo(expected.rejected());
+        assertThat(countUsers()).isEqualTo(expected.imported());
+    }
+
+    @Test
+    void resumeImport_rejectsShorterUpload_andReleasesTheJob() {
+        UserImportDto failed = userImportService.startImport(new SyntheticCsv(250_000, 230_000));
+
+        assertThatThrownBy(() -> userImportService.resumeImport(failed.id(), new SyntheticCsv(150_000, Long.MAX_VALUE)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("200000");
+
+        UserImportDto released = userImportService.findImport(failed.id()).orElseThrow();
+        assertThat(released.status()).isEqualTo(UserImport.Status.FAILED);
+        assertThat(released.linesCommitted()).isEqualTo(200_000);
+    }
+
+    @Test
+    void startImport_stopsCounting_onceAnotherUploadHasTakenTheJobOver() {
+        // another upload claims the job while this one is still reading its second chunk
+        UserImportDto job = userImportService.startImport(new SyntheticCsv(250_000, Long.MAX_VALUE, 150_000,
+                () -> jdbcTemplate.update("UPDATE user_service.user_import SET attempt = gen_random_uuid()")));
+
+        assertThat(job.status()).isEqualTo(UserImport.Status.RUNNING);
+        assertThat(job.linesCommitted()).isEqualTo(100_000);
+        assertThat(countUsers()).isEqualTo(job.rowsImported());
+    }
+
+    @Test
+    void startImport_rejectsUploadWithoutRequiredColumns() {
+        InputStream csv = new ByteArrayInputStream("username,date_of_birth\nbob,1990-01-01\n"
+                .getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> userImportService.startImport(csv)).isInstanceOf(BadRequestException.class);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM user_service.user_import", Long.class)).isZero();
+    }
+
+    private long countUsers() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM user_service.users", Long.class);
+    }
+
+    // every 997th line is invalid; every 1000th reuses the previous line's username
+    private record Expected(long imported, long duplicate, long rejected) {
+        static Expected of(long rows) {
+            long rejected = 0;
+            long duplicate = 0;
+            for (long i = 1; i <= rows; i++) {
+                if (i % 997 == 0) {
+                    rejected++;
+                } else if (i % 1000 == 0 && (i - 1) % 997 != 0) {
+                    duplicate++;
+                }
+            }
+            return new Expected(rows - rejected - duplicate, duplicate, rejected);
+        }
+    }
+
+    // generates the upload line by line so a multi-million-row file never exists in memory or on disk
+    private static final class SyntheticCsv extends InputStream {
+        private final long rows;
+        private final long failAfter;
+        private final long hookAt;
+        private final Runnable hook;
+        private long next;
+        private byte[] current = new byte[0];
+        private int position;
+
+        private SyntheticCsv(long rows, long failAfter) {
+            this(rows, failAfter, -1, () -> {
+            });
+        }
+
+        private SyntheticCsv(long rows, long failAfter, long hookAt, Runnable hook) {
+            this.rows = rows;
+            this.failAfter = failAfter;
+            this.hookAt = hookAt;
+            this.hook = hook;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == current.length && !advance()) {
+                return -1;
+            }
+            return current[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position == current.length && !advance()) {
+                return -1;
+            }
+            int n = Math.min(len, current.length - position);
+            System.arraycopy(current, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        private boolean advance() throws IOException {
+            if (next > rows) {
+                return false;
+            }
+            if (next > failAfter) {
+                throw new IOException("Connection reset");
+            }
+            if (next == hookAt) {
+                hook.run();
+            }
+            current = (next == 0 ? "username,email,date_of_birth,password\n" : line(next))
+                    .getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            next++;
+            return true;
+        }
+
+        private static String line(long i) {
+            String password = i % 100 == 1 ? HASH : "";
+            if (i % 997 == 0) {
+                return "import" + i + ",not-an-email,1990-01-01," + password + "\n";
+            }
+            if (i % 1000 == 0) {
+                return "import" + (i - 1) + ",Import" + i + "@Example.com,1990-01-01," + password + "\n";
+            }
+            if (i % 7 == 0) {
+                return "\"import" + i + "\", Import" + i + "@Example.com ,1990-01-01," + password + "\n";
+            }
+            return " import" + i + " ,Import" + i + "@Example.com,1990-01-01," + password + "\n";
+        }
+    }
+}
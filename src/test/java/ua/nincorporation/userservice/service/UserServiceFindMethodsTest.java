@@ -1,17 +1,23 @@
 package ua.nincorporation.userservice.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import ua.nincorporation.userservice.dto.UserLookupDto;
+import ua.nincorporation.userservice.dto.UserPageDto;
 import ua.nincorporation.userservice.dto.UserReadDto;
+import ua.nincorporation.userservice.exception.BadRequestException;
 import ua.nincorporation.userservice.mapper.UserReadMapper;
-import ua.nincorporation.userservice.model.User;
 import ua.nincorporation.userservice.repository.UserRepository;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -28,142 +34,205 @@ class UserServiceFindMethodsTest {
     private UserRepository userRepository;
     @Mock
     private UserReadMapper userReadMapper;
+    @Spy
+    private UserCache userCache = new UserCache(100, Duration.ofMinutes(5), Duration.ofSeconds(30), new SimpleMeterRegistry());
 
     @InjectMocks
     private UserService userService;
 
     @Test
-    void findAll_returnsListOfDtos_whenRepositoryReturnsUsers() {
-        User u1 = makeUser(1L, "alice", "alice@gmail.com");
-        User u2 = makeUser(2L, "bob", "bob@gmail.com");
+    void findUsersPage_returnsFirstPageWithCursor_whenMoreRowsExist() {
+        UserReadDto d1 = makeUserReadDto(1L, "alice", "alice@gmail.com");
+        UserReadDto d2 = makeUserReadDto(2L, "bob", "bob@gmail.com");
+        UserReadDto d3 = makeUserReadDto(3L, "carol", "carol@gmail.com");
 
-        UserReadDto d1 = makeUserReadDto("alice", "alice@gmail.com");
-        UserReadDto d2 = makeUserReadDto("bob", "bob@gmail.com");
+        doReturn(List.of(d1, d2, d3)).when(userRepository).findReadDtoPage(0L, Limit.of(3));
 
-        doReturn(List.of(u1, u2)).when(userRepository).findAll();
-        doReturn(d1).when(userReadMapper).toDto(u1);
-        doReturn(d2).when(userReadMapper).toDto(u2);
+        UserPageDto page = userService.findUsersPage(null, 2);
 
-        List<UserReadDto> result = userService.findAllUsers();
+        assertThat(page.items()).containsExactly(d1, d2);
+        assertThat(page.nextCursor()).isEqualTo(UserCursor.encode(2L));
+        verify(userRepository).findReadDtoPage(0L, Limit.of(3));
+        verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(userReadMapper);
+    }
+
+    @Test
+    void findUsersPage_continuesAfterCursor_andEndsWithoutNextCursor() {
+        UserReadDto d3 = makeUserReadDto(3L, "carol", "carol@gmail.com");
+
+        doReturn(List.of(d3)).when(userRepository).findReadDtoPage(2L, Limit.of(3));
 
-        assertThat(result).hasSize(2).containsExactly(d1, d2);
-        verify(userRepository).findAll();
-        verify(userReadMapper).toDto(u1);
-        verify(userReadMapper).toDto(u2);
-        verifyNoMoreInteractions(userRepository, userReadMapper);
+        UserPageDto page = userService.findUsersPage(UserCursor.encode(2L), 2);
+
+        assertThat(page.items()).containsExactly(d3);
+        assertThat(page.nextCursor()).isNull();
     }
 
     @Test
-    void findAll_returnsEmptyList_whenRepositoryReturnsEmpty() {
-        doReturn(List.of()).when(userRepository).findAll();
+    void findUsersPage_returnsEmptyPage_whenRepositoryReturnsEmpty() {
+        doReturn(List.of()).when(userRepository).findReadDtoPage(0L, Limit.of(51));
 
-        List<UserReadDto> result = userService.findAllUsers();
+        UserPageDto page = userService.findUsersPage(null, 50);
 
-        assertThat(result).isEmpty();
-        verify(userRepository).findAll();
-        verifyNoInteractions(userReadMapper);
+        assertThat(page.items()).isEmpty();
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void findUsersPage_rejectsMalformedCursor() {
+        assertThatThrownBy(() -> userService.findUsersPage("not a cursor", 50))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(userRepository);
     }
 
     @Test
-    void findAllUsers_propagatesRepositoryException() {
-        doThrow(new RuntimeException("db down")).when(userRepository).findAll();
-        assertThatThrownBy(() -> userService.findAllUsers())
+    void findUsersPage_propagatesRepositoryException() {
+        doThrow(new RuntimeException("db down")).when(userRepository).findReadDtoPage(0L, Limit.of(51));
+        assertThatThrownBy(() -> userService.findUsersPage(null, 50))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("db down");
-        verify(userRepository).findAll();
     }
 
     @Test
     void findById_returnsDto_whenUserFoundById() {
-        User user = makeUser(1L, "ivan", "ivan@gmail.com");
-        UserReadDto dto = makeUserReadDto("ivan", "ivan@gmail.com");
+        UserReadDto dto = makeUserReadDto(1L, "ivan", "ivan@gmail.com");
 
-        doReturn(Optional.of(user)).when(userRepository).findById(1L);
-        doReturn(dto).when(userReadMapper).toDto(user);
+        doReturn(Optional.of(dto)).when(userRepository).findReadDtoById(1L);
 
         Optional<UserReadDto> opt = userService.findUserById(1L);
 
         assertThat(opt).isPresent().contains(dto);
-        verify(userRepository).findById(1L);
-        verify(userReadMapper).toDto(user);
-        verifyNoMoreInteractions(userRepository, userReadMapper);
+        verify(userRepository).findReadDtoById(1L);
+        verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(userReadMapper);
     }
 
     @Test
     void findById_returnsEmptyOptional_whenUserNotFoundById() {
-        doReturn(Optional.empty()).when(userRepository).findById(123L);
+        doReturn(Optional.empty()).when(userRepository).findReadDtoById(123L);
 
         Optional<UserReadDto> opt = userService.findUserById(123L);
         assertThat(opt).isEmpty();
-        verify(userRepository).findById(123L);
+        verify(userRepository).findReadDtoById(123L);
         verifyNoInteractions(userReadMapper);
     }
 
+    @Test
+    void lookupUsers_queriesDistinctIdsOnce_andReportsMissingInRequestOrder() {
+        UserReadDto d1 = makeUserReadDto(1L, "alice", "alice@gmail.com");
+        UserReadDto d3 = makeUserReadDto(3L, "carol", "carol@gmail.com");
+
+        doReturn(List.of(d1, d3)).when(userRepository).findReadDtoByIdIn(List.of(3L, 2L, 1L, 4L));
+
+        UserLookupDto result = userService.lookupUsers(List.of(3L, 2L, 1L, 3L, 4L));
+
+        assertThat(result.users()).containsExactly(d3, d1);
+        assertThat(result.missing()).containsExactly(2L, 4L);
+        verify(userRepository).findReadDtoByIdIn(List.of(3L, 2L, 1L, 4L));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void lookupUsers_fetchesOnlyCacheMisses() {
+        UserReadDto d1 = makeUserReadDto(1L, "alice", "alice@gmail.com");
+        UserReadDto d2 = makeUserReadDto(2L, "bob", "bob@gmail.com");
+        doReturn(Optional.of(d1)).when(userRepository).findReadDtoById(1L);
+        doReturn(List.of(d2)).when(userRepository).findReadDtoByIdIn(List.of(2L, 3L));
+
+        userService.findUserById(1L);
+        UserLookupDto result = userService.lookupUsers(List.of(1L, 2L, 3L));
+
+        assertThat(result.users()).containsExactly(d1, d2);
+        assertThat(result.missing()).containsExactly(3L);
+        verify(userRepository).findReadDtoByIdIn(List.of(2L, 3L));
+
+        assertThat(userService.lookupUsers(List.of(1L, 2L)).users()).containsExactly(d1, d2);
+        verify(userRepository, times(1)).findReadDtoByIdIn(any());
+    }
+
+    @Test
+    void findById_servesRepeatsAndOtherKeysFromCache() {
+        UserReadDto dto = makeUserReadDto(1L, "ivan", "ivan@gmail.com");
+        doReturn(Optional.of(dto)).when(userRepository).findReadDtoById(1L);
+
+        userService.findUserById(1L);
+
+        assertThat(userService.findUserById(1L)).contains(dto);
+        assertThat(userService.findByUsername("ivan")).contains(dto);
+        assertThat(userService.findByEmail("ivan@gmail.com")).contains(dto);
+        verify(userRepository, times(1)).findReadDtoById(1L);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void findById_reloadsAfterUserChanged_andDoesNotCacheMisses() {
+        UserReadDto before = makeUserReadDto(1L, "ivan", "ivan@gmail.com");
+        UserReadDto after = makeUserReadDto(1L, "ivan2", "ivan@gmail.com");
+        doReturn(Optional.of(before), Optional.of(after)).when(userRepository).findReadDtoById(1L);
+        doReturn(Optional.empty()).when(userRepository).findReadDtoByUsername("ivan");
+
+        userService.findUserById(1L);
+        userCache.onUserChanged(new UserChangedEvent(1L, "ivan", "ivan@gmail.com"));
+
+        assertThat(userService.findUserById(1L)).contains(after);
+        assertThat(userService.findByUsername("ivan")).isEmpty();
+        assertThat(userService.findByUsername("ivan")).isEmpty();
+        verify(userRepository, times(2)).findReadDtoById(1L);
+        verify(userRepository, times(2)).findReadDtoByUsername("ivan");
+    }
+
     @Test
     void findByEmail_returnsDto_whenUserFoundByEmail() {
-        User user = makeUser(1L, "maria", "maria@gmail.com");
-        UserReadDto dto = makeUserReadDto("maria", "maria@gmail.com");
+        UserReadDto dto = makeUserReadDto(1L, "maria", "maria@gmail.com");
 
-        doReturn(Optional.of(user)).when(userRepository).findByEmail("maria@gmail.com");
-        doReturn(dto).when(userReadMapper).toDto(user);
+        doReturn(Optional.of(dto)).when(userRepository).findReadDtoByEmail("maria@gmail.com");
 
         Optional<UserReadDto> opt = userService.findByEmail("maria@gmail.com");
 
         assertThat(opt).isPresent().contains(dto);
-        verify(userRepository).findByEmail("maria@gmail.com");
-        verify(userReadMapper).toDto(user);
-        verifyNoMoreInteractions(userRepository, userReadMapper);
+        verify(userRepository).findReadDtoByEmail("maria@gmail.com");
+        verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(userReadMapper);
     }
 
     @Test
     void findByEmail_returnsEmpty_whenEmailNotFound() {
-        doReturn(Optional.empty()).when(userRepository).findByEmail("no@one.com");
+        doReturn(Optional.empty()).when(userRepository).findReadDtoByEmail("no@one.com");
 
         Optional<UserReadDto> opt = userService.findByEmail("no@one.com");
 
         assertThat(opt).isEmpty();
-        verify(userRepository).findByEmail("no@one.com");
+        verify(userRepository).findReadDtoByEmail("no@one.com");
         verifyNoInteractions(userReadMapper);
     }
 
     @Test
     void findByUsername_returnsDto_whenUserFoundByUsername() {
-        User user = makeUser(1L, "sam", "sam@gmail.com");
-        UserReadDto dto = makeUserReadDto("sam", "sam@gmail.com");
+        UserReadDto dto = makeUserReadDto(1L, "sam", "sam@gmail.com");
 
-        doReturn(Optional.of(user)).when(userRepository).findByUsername("sam");
-        doReturn(dto).when(userReadMapper).toDto(user);
+        doReturn(Optional.of(dto)).when(userRepository).findReadDtoByUsername("sam");
 
         Optional<UserReadDto> opt = userService.findByUsername("sam");
 
         assertThat(opt).isPresent().contains(dto);
-        verify(userRepository).findByUsername("sam");
-        verify(userReadMapper).toDto(user);
-        verifyNoMoreInteractions(userRepository, userReadMapper);
+        verify(userRepository).findReadDtoByUsername("sam");
+        verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(userReadMapper);
     }
 
     @Test
     void findByUsername_returnsEmpty_whenUsernameNotFound() {
-        doReturn(Optional.empty()).when(userRepository).findByUsername("unknown");
+        doReturn(Optional.empty()).when(userRepository).findReadDtoByUsername("unknown");
 
         Optional<UserReadDto> opt = userService.findByUsername("unknown");
 
         assertThat(opt).isEmpty();
-        verify(userRepository).findByUsername("unknown");
+        verify(userRepository).findReadDtoByUsername("unknown");
         verifyNoInteractions(userReadMapper);
     }
 
-    private static User makeUser(Long id, String username, String email) {
-        return User.builder()
-                .id(id)
-                .username(username)
-                .email(email)
-                .dateOfBirth(LocalDate.of(1990, 1, 1))
-                .password("pwd")
-                .build();
-    }
-
-    private static UserReadDto makeUserReadDto(String username, String email) {
-        return new UserReadDto(username, email, LocalDate.of(1990,1,1));
+    private static UserReadDto makeUserReadDto(Long id, String username, String email) {
+        return new UserReadDto(id, username, email, LocalDate.of(1990,1,1));
     }
 }
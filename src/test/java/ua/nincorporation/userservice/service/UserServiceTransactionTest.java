@@ -1,12 +1,17 @@
 package ua.nincorporation.userservice.service;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import ua.nincorporation.userservice.dto.UserCreateDto;
 import ua.nincorporation.userservice.dto.UserReadDto;
 import ua.nincorporation.userservice.dto.UserUpdateDTO;
@@ -23,6 +28,7 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,9 +44,20 @@ class UserServiceTransactionTest {
     private UserCreateMapper userCreateMapper;
     @Mock
     private UserUpdateMapper userUpdateMapper;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private UserService userService;
 
+    @BeforeEach
+    void runTransactionCallbacksInline() {
+        lenient().doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0)
+                        .doInTransaction(mock(TransactionStatus.class)))
+                .when(transactionTemplate).execute(any());
+    }
+
     @Test
     void createUser_success() {
         UserCreateDto userCreateDto = getUserCreateDto();
@@ -80,11 +97,18 @@ class UserServiceTransactionTest {
                 "5678",
                 LocalDate.of(1991, 2, 2),
                 "bob@gmail.com");
+        UserUpdateDTO encodedDto = new UserUpdateDTO(
+                "Bob",
+                "encoded5678",
+                LocalDate.of(1991, 2, 2),
+                "bob@gmail.com");
         UserReadDto userReadDto = new UserReadDto(
                 "Bob",
                 "bob@gmail.com",
                 LocalDate.of(1991, 2, 2));
 
+        doReturn(true).when(userRepository).existsById(1L);
+        doReturn("encoded5678").when(passwordEncoder).encode("5678");
         doReturn(Optional.of(userFromDb)).when(userRepository).findById(1L);
         doReturn(false).when(userRepository).existsByUsernameAndIdNot("Bob".trim(), 1L);
         doReturn(false).when(userRepository).existsByEmailAndIdNot("bob@gmail.com".trim().toLowerCase(), 1L);
@@ -92,75 +116,117 @@ class UserServiceTransactionTest {
             User user = invocation.getArgument(0);
             UserUpdateDTO update = invocation.getArgument(1);
             user.setUsername(update.username());
-            user.setPassword("encoded5678");
+            user.setPassword(update.password());
             user.setEmail(update.email());
             user.setDateOfBirth(update.dateOfBirth());
             return user;
-        }).when(userUpdateMapper).update(userFromDb, updateDto);
+        }).when(userUpdateMapper).update(userFromDb, encodedDto);
         doReturn(userFromDb).when(userRepository).saveAndFlush(userFromDb);
         doReturn(userReadDto).when(userReadMapper).toDto(userFromDb);
 
         Optional<UserReadDto> result = userService.updateUser(1L, updateDto);
 
         assertThat(result).isPresent().contains(userReadDto);
+        verify(userRepository).existsById(1L);
+        verify(passwordEncoder).encode("5678");
         verify(userRepository).findById(1L);
-        verify(userRepository).existsByUsernameAndIdNot("Bob".trim(), 1L);
-        verify(userRepository).existsByEmailAndIdNot("bob@gmail.com".trim().toLowerCase(), 1L);
-        verify(userUpdateMapper).update(userFromDb, updateDto);
+        verify(userRepository, times(2)).existsByUsernameAndIdNot("Bob".trim(), 1L);
+        verify(userRepository, times(2)).existsByEmailAndIdNot("bob@gmail.com".trim().toLowerCase(), 1L);
+        verify(userUpdateMapper).update(userFromDb, encodedDto);
         ArgumentCaptor<User> captor = ArgumentCaptor.forClass(User.class);
         verify(userRepository).saveAndFlush(captor.capture());
         User savedArg = captor.getValue();
         assertThat(savedArg.getUsername()).isEqualTo("Bob");
         assertThat(savedArg.getEmail()).isEqualTo("bob@gmail.com");
+        assertThat(savedArg.getPassword()).isEqualTo("encoded5678");
         verify(userReadMapper).toDto(userFromDb);
+        verify(eventPublisher).publishEvent(new UserChangedEvent(1L, "Ivan", "ivan@gmail.com"));
         verifyNoMoreInteractions(userRepository, passwordEncoder, userReadMapper, userCreateMapper, userUpdateMapper);
     }
 
     @Test
-    void updateUser_returnsEmpty_whenUserNotFound() {
+    void updateUser_returnsEmpty_withoutHashing_whenUserNotFound() {
         UserUpdateDTO updateDto = new UserUpdateDTO(
                 "Bob",
                 "5678",
                 LocalDate.of(1991, 2, 2),
                 "bob@gmail.com");
 
+        doReturn(false).when(userRepository).existsById(123L);
+
+        Optional<UserReadDto> result = userService.updateUser(123L, updateDto);
+
+        assertThat(result).isEmpty();
+        verify(userRepository).existsById(123L);
+        verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(passwordEncoder, transactionTemplate, userUpdateMapper);
+    }
+
+    @Test
+    void updateUser_returnsEmpty_whenUserDeletedAfterPreCheck() {
+        UserUpdateDTO updateDto = new UserUpdateDTO(
+                null,
+                "5678",
+                null,
+                null);
+
+        doReturn(true).when(userRepository).existsById(123L);
+        doReturn("encoded5678").when(passwordEncoder).encode("5678");
         doReturn(Optional.empty()).when(userRepository).findById(123L);
 
         Optional<UserReadDto> result = userService.updateUser(123L, updateDto);
 
         assertThat(result).isEmpty();
+        verify(userRepository).existsById(123L);
+        verify(passwordEncoder).encode("5678");
         verify(userRepository).findById(123L);
         verifyNoMoreInteractions(userRepository, passwordEncoder, userReadMapper, userCreateMapper, userUpdateMapper);
     }
 
     @Test
-    void updateUser_throwsException_whenUsernameAlreadyExists() {
-        User userFromDb = User.builder()
-                .id(1L)
-                .username("Ivan")
-                .password("encoded1234")
-                .email("ivan@gmail.com")
-                .dateOfBirth(LocalDate.of(1990, 1, 1))
-                .build();
+    void updateUser_throwsException_withoutHashing_whenUsernameAlreadyExists() {
         UserUpdateDTO updateDto = new UserUpdateDTO(
                 "Bob",
                 "5678",
                 LocalDate.of(1991, 2, 2),
                 "bob@gmail.com");
 
-        doReturn(Optional.of(userFromDb)).when(userRepository).findById(1L);
+        doReturn(true).when(userRepository).existsById(1L);
         doReturn(true).when(userRepository).existsByUsernameAndIdNot("Bob".trim(), 1L);
 
         assertThatThrownBy(() -> userService.updateUser(1L, updateDto))
                 .isInstanceOf(ConflictException.class)
                 .hasMessageContaining("Username already in use");
-        verify(userRepository).findById(1L);
+        verify(userRepository).existsById(1L);
         verify(userRepository).existsByUsernameAndIdNot("Bob".trim(), 1L);
-        verifyNoMoreInteractions(userRepository, passwordEncoder, userReadMapper, userCreateMapper, userUpdateMapper);
+        verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(passwordEncoder, transactionTemplate, userUpdateMapper);
+    }
+
+    @Test
+    void updateUser_throwsException_withoutHashing_whenEmailAlreadyExists() {
+        UserUpdateDTO updateDto = new UserUpdateDTO(
+                "Bob",
+                "5678",
+                LocalDate.of(1991, 2, 2),
+                "bob@gmail.com");
+
+        doReturn(true).when(userRepository).existsById(1L);
+        doReturn(false).when(userRepository).existsByUsernameAndIdNot("Bob".trim(), 1L);
+        doReturn(true).when(userRepository).existsByEmailAndIdNot("bob@gmail.com".trim().toLowerCase(), 1L);
+
+        assertThatThrownBy(() -> userService.updateUser(1L, updateDto))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("Email already in use");
+        verify(userRepository).existsById(1L);
+        verify(userRepository).existsByUsernameAndIdNot("Bob".trim(), 1L);
+        verify(userRepository).existsByEmailAndIdNot("bob@gmail.com".trim().toLowerCase(), 1L);
+        verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(passwordEncoder, transactionTemplate, userUpdateMapper);
     }
 
     @Test
-    void updateUser_throwsException_whenEmailAlreadyExists() {
+    void updateUser_rechecksConflicts_insideTransaction() {
         User userFromDb = User.builder()
                 .id(1L)
                 .username("Ivan")
@@ -172,20 +238,23 @@ class UserServiceTransactionTest {
                 "Bob",
                 "5678",
                 LocalDate.of(1991, 2, 2),
-                "bob@gmail.com");
-
+                null);
 
+        doReturn(true).when(userRepository).existsById(1L);
+        // the name is taken between the pre-check and the transaction
+        doReturn(false, true).when(userRepository).existsByUsernameAndIdNot("Bob", 1L);
+        doReturn("encoded5678").when(passwordEncoder).encode("5678");
         doReturn(Optional.of(userFromDb)).when(userRepository).findById(1L);
-        doReturn(false).when(userRepository).existsByUsernameAndIdNot("Bob".trim(), 1L);
-        doReturn(true).when(userRepository).existsByEmailAndIdNot("bob@gmail.com".trim().toLowerCase(), 1L);
 
         assertThatThrownBy(() -> userService.updateUser(1L, updateDto))
                 .isInstanceOf(ConflictException.class)
-                .hasMessageContaining("Email already in use");
+                .hasMessageContaining("Username already in use");
+        verify(userRepository).existsById(1L);
+        verify(passwordEncoder).encode("5678");
         verify(userRepository).findById(1L);
-        verify(userRepository).existsByUsernameAndIdNot("Bob".trim(), 1L);
-        verify(userRepository).existsByEmailAndIdNot("bob@gmail.com".trim().toLowerCase(), 1L);
+        verify(userRepository, times(2)).existsByUsernameAndIdNot("Bob", 1L);
         verifyNoMoreInteractions(userRepository, passwordEncoder, userReadMapper, userCreateMapper, userUpdateMapper);
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -200,6 +269,7 @@ class UserServiceTransactionTest {
         verify(userRepository).findById(1L);
         verify(userRepository).delete(userFromDb);
         verify(userRepository).flush();
+        verify(eventPublisher).publishEvent(new UserChangedEvent(1L, "Ivan", "ivan@gmail.com"));
         verifyNoMoreInteractions(userRepository);
     }
 
@@ -212,6 +282,7 @@ class UserServiceTransactionTest {
         assertThat(result).isFalse();
         verify(userRepository).findById(123L);
         verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(eventPublisher);
     }
 
     private static UserCreateDto getUserCreateDto() {